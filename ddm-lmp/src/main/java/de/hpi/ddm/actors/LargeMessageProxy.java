@@ -1,18 +1,34 @@
 package de.hpi.ddm.actors;
 
 import com.esotericsoftware.kryo.Kryo;
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.twitter.chill.KryoInstantiator;
 import java.io.*;
 import akka.actor.*;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.stream.SourceRef;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.StreamRefs;
+import akka.util.ByteString;
+import de.hpi.ddm.configuration.ConfigurationSingleton;
+import de.hpi.ddm.structures.ChunkCodec;
+import de.hpi.ddm.structures.ChunkedOutputStream;
+import de.hpi.ddm.structures.KryoPoolSingleton;
+import de.hpi.ddm.structures.StreamingKryoPool;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
 
 public class LargeMessageProxy extends AbstractLoggingActor {
 
@@ -22,13 +38,24 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 
 	public static final String DEFAULT_NAME = "largeMessageProxy";
 
-	private static final int MESSAGE_SIZE = 128;
-	private List<byte[]> messages = new LinkedList<>();
+	private static final int FRAME_OVERHEAD = 8 * 1024;	// room in a transport frame for the envelope of a stream ref element, i.e., its paths, sequence number and headers
+
+	private static final double MIN_COMPRESSION_RATIO = 1.5;	// payloads that compress worse than this are not worth the cpu time of compressing every chunk
+
+	// the pooled kryo instances come with the message serializer, so that no send or receive needs to set it up
+	private static final StreamingKryoPool KRYO = KryoPoolSingleton.create(new KryoInstantiator().withRegistrar(LargeMessageProxy::registerSerializers));
 
 	public static Props props() {
 		return Props.create(LargeMessageProxy.class);
 	}
 
+	private static void registerSerializers(Kryo kryo) {
+		FieldSerializer fieldSerializer = new FieldSerializer(kryo, LargeMessage.class);
+		// receiver attribute won't be serialized, serialize message only
+		fieldSerializer.removeField("receiver");
+		kryo.register(LargeMessage.class, fieldSerializer);
+	}
+
 	////////////////////
 	// Actor Messages //
 	////////////////////
@@ -40,21 +67,140 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 		private ActorRef receiver;
 	}
 
+	// announces a transfer, so that the receiving proxy can allocate the whole payload at once
 	@Data @NoArgsConstructor @AllArgsConstructor
-	public static class BytesMessage<T> implements Serializable {
-		private static final long serialVersionUID = 4057807743872319842L;
+	public static class TransferMessage implements Serializable {
+		private static final long serialVersionUID = -6353400823564781620L;
+		private long id;		// the id of the transfer; unique per sending proxy
 		private ActorRef sender;
 		private ActorRef receiver;
+		private int length;		// the number of bytes of the serialized payload
+		private int chunkSize;	// the number of bytes per chunk; only the last chunk may be smaller
+		private boolean stream;	// true if the chunks follow as a stream ref instead of bytes messages
+		private boolean compressed;	// true if every chunk is compressed on its own
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class BytesMessage implements Serializable {
+		private static final long serialVersionUID = 4057807743872319842L;
+		private long id;	// the id of the transfer that the chunk belongs to
+		private int index;	// the position of the chunk in the payload
+		private byte[] bytes;	// compressed if the transfer is compressed
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class AckMessage implements Serializable {
+		private static final long serialVersionUID = -1591932290433442707L;
+		private long id;		// the id of the acknowledged transfer
+		private int received;	// the number of chunks that the receiving proxy holds
+	}
+
+	// tells the sending proxy that the stream of a transfer is ready to be pulled; never leaves the sending proxy
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class StreamReadyMessage implements NoSerializationVerificationNeeded {
+		private TransferMessage header;
+		private SourceRef<ByteString> sourceRef;
+	}
+
+	// tells the receiving proxy that the stream of a transfer is drained; never leaves the receiving proxy
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class StreamCompletedMessage implements NoSerializationVerificationNeeded {
+		private TransferMessage header;
+		private byte[] payload;
+		private Throwable failure;	// null if the stream completed successfully
+	}
+
+	@Data
+	public static class SweepMessage implements Serializable {
+		private static final long serialVersionUID = 2328730451683957532L;
 	}
 
 	/////////////////
 	// Actor State //
 	/////////////////
 
+	private static class OutgoingTransfer {
+		private final TransferMessage header;
+		private final List<byte[]> chunks;
+		private final ActorSelection receiverProxy;
+		private final int numChunks;
+		private int sent = 0;
+		private int acked = 0;
+		private long lastActivity = System.currentTimeMillis();
+
+		private OutgoingTransfer(TransferMessage header, List<byte[]> chunks, ActorSelection receiverProxy) {
+			this.header = header;
+			this.chunks = chunks;
+			this.receiverProxy = receiverProxy;
+			this.numChunks = chunks.size();
+		}
+	}
+
+	private static class IncomingTransfer {
+		private final TransferMessage header;
+		private final byte[] payload;
+		private final int numChunks;
+		private int received = 0;
+		private long lastActivity = System.currentTimeMillis();
+
+		private IncomingTransfer(TransferMessage header) {
+			this.header = header;
+			this.payload = new byte[header.length];
+			this.numChunks = (header.length + header.chunkSize - 1) / header.chunkSize;
+		}
+	}
+
+	private static class IncomingStream {
+		private final TransferMessage header;
+		private final long arrival = System.currentTimeMillis();
+
+		private IncomingStream(TransferMessage header) {
+			this.header = header;
+		}
+	}
+
+	// transfer ids are only unique per sending proxy, so incoming transfers are identified by both
+	@Data
+	private static class TransferKey {
+		private final ActorRef senderProxy;
+		private final long id;
+	}
+
+	private final int chunkSize = ConfigurationSingleton.get().getChunkSize();
+	// the stream ref stages are no large message destinations, so their elements must fit into the ordinary frames
+	private final int streamChunkSize = Math.min(this.chunkSize,
+			(int) this.context().system().settings().config().getBytes("akka.remote.artery.advanced.maximum-frame-size").longValue() - FRAME_OVERHEAD);
+	private final int sendWindow = ConfigurationSingleton.get().getSendWindow();
+	private final long transferTimeout = TimeUnit.SECONDS.toMillis(ConfigurationSingleton.get().getTransferTimeout());
+	private final boolean streamRefs = ConfigurationSingleton.get().isStreamRefs();
+	private final boolean compression = ConfigurationSingleton.get().isCompression();
+	private final ChunkCodec codec = new ChunkCodec();	// compresses outgoing and decompresses incoming chunks of the bytes messages
+	private final Materializer materializer = ActorMaterializer.create(this.context());
+
+	private long nextTransferId = 0;
+	private final Map<Long, OutgoingTransfer> outgoing = new HashMap<>();
+	private final Map<TransferKey, IncomingTransfer> incoming = new HashMap<>();
+	private final Map<ActorRef, IncomingStream> incomingStreams = new HashMap<>();	// the header of each sending proxy whose stream ref is about to arrive
+	private Cancellable sweepTimer;
+
 	/////////////////////
 	// Actor Lifecycle //
 	/////////////////////
 
+	@Override
+	public void preStart() {
+		FiniteDuration interval = Duration.create(this.transferTimeout, TimeUnit.MILLISECONDS);
+		this.sweepTimer = this.context().system().scheduler().schedule(interval, interval,
+				this.self(), new SweepMessage(), this.context().dispatcher(), ActorRef.noSender());
+	}
+
+	@Override
+	public void postStop() {
+		if (this.sweepTimer != null)
+			this.sweepTimer.cancel();
+		this.codec.end();
+	}
+
 	////////////////////
 	// Actor Behavior //
 	////////////////////
@@ -63,8 +209,13 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 	public Receive createReceive() {
 		return receiveBuilder()
 				.match(LargeMessage.class, this::handle)
-				.match(byte[].class, this::handle)
+				.match(TransferMessage.class, this::handle)
 				.match(BytesMessage.class, this::handle)
+				.match(AckMessage.class, this::handle)
+				.match(StreamReadyMessage.class, this::handle)
+				.match(SourceRef.class, this::handle)
+				.match(StreamCompletedMessage.class, this::handle)
+				.match(SweepMessage.class, this::handle)
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
 				.build();
 	}
@@ -73,73 +224,198 @@ public class LargeMessageProxy extends AbstractLoggingActor {
 		ActorRef receiver = message.getReceiver();
 		ActorSelection receiverProxy = this.context().actorSelection(receiver.path().child(DEFAULT_NAME));
 
-		//serialize message
-		Kryo kryo = new Kryo();
-		FieldSerializer fieldSerializer = new FieldSerializer(kryo, LargeMessage.class);
-		// receiver attribute won't be serialized, serialize message only
-		fieldSerializer.removeField("receiver");
-		kryo.register(LargeMessage.class, fieldSerializer);
+		//serialize message through a pooled output buffer straight into the chunks that are sent, so that the whole payload is never held in one array
+		int chunkSize = this.streamRefs ? this.streamChunkSize : this.chunkSize;
+		ChunkedOutputStream stream = new ChunkedOutputStream(chunkSize);
+		KRYO.writeWithoutClass(message, stream);
+		if (stream.size() > Integer.MAX_VALUE) {
+			this.log().error("Dropped a message of {} bytes for {}, which exceeds the largest payload that a receiving proxy can assemble", stream.size(), receiver);
+			return;
+		}
+		List<byte[]> chunks = stream.toChunks();
 
-		ByteArrayOutputStream stream = new ByteArrayOutputStream();
-		Output output = new Output(stream);
-		kryo.writeObject(output, message);
-		output.close();
+		// a sample of the chunks tells whether compressing them pays off
+		boolean compressed = this.compression && (this.codec.sampleRatio(chunks) >= MIN_COMPRESSION_RATIO);
 
-		byte[] buffer = stream.toByteArray();
-		try {
-			stream.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		TransferMessage header = new TransferMessage(this.nextTransferId++, this.sender(), receiver, (int) stream.size(), chunkSize, this.streamRefs, compressed);
 
-		//split buffer into smaller pieces
-		List<byte[]> pieces = new LinkedList<>();
-		for(int byteIndex = 0; byteIndex < buffer.length; byteIndex += MESSAGE_SIZE) {
-			int endOfCopy = Math.min(byteIndex + MESSAGE_SIZE, buffer.length);
-			pieces.add(Arrays.copyOfRange(buffer, byteIndex, endOfCopy));
+		if (header.stream) {
+			this.offer(header, chunks);
+			return;
 		}
 
-		//send pieces
-		for(byte[] piece : pieces) {
-			receiverProxy.tell(piece, this.self());
+		// every transfer streams concurrently to the others through its own send window
+		OutgoingTransfer transfer = new OutgoingTransfer(header, chunks, receiverProxy);
+		this.outgoing.put(header.id, transfer);
+
+		transfer.receiverProxy.tell(header, this.self());
+		this.sendChunks(transfer);
+	}
+
+	private void offer(TransferMessage header, List<byte[]> chunks) {
+		// the receiving proxy pulls the chunks through a stream ref, so that the stream's demand takes the place of our acks
+		ChunkCodec codec = header.compressed ? new ChunkCodec() : null;	// the stream compresses on its own thread, so it cannot share the actor's codec
+		ActorRef self = this.self();
+		// the chunks are never written again, so the byte strings may wrap them without a copy
+		Source.from(chunks)
+				.map(chunk -> ByteString.fromArrayUnsafe(header.compressed ? codec.compress(chunk, 0, chunk.length) : chunk))
+				.alsoTo(Sink.onComplete(done -> {
+					if (codec != null)
+						codec.end();
+				}))
+				.runWith(StreamRefs.<ByteString>sourceRef(), this.materializer)
+				.thenAccept(sourceRef -> self.tell(new StreamReadyMessage(header, sourceRef), ActorRef.noSender()));
+	}
+
+	private void handle(StreamReadyMessage message) {
+		// the header and its stream ref leave together, so that the receiving proxy can pair them by their order
+		ActorSelection receiverProxy = this.context().actorSelection(message.getHeader().getReceiver().path().child(DEFAULT_NAME));
+		receiverProxy.tell(message.getHeader(), this.self());
+		receiverProxy.tell(message.getSourceRef(), this.self());
+	}
+
+	private void sendChunks(OutgoingTransfer transfer) {
+		// keep at most a window of unacknowledged chunks in flight, so that the receiver's mailbox and the transport buffers never overflow
+		while ((transfer.sent < transfer.numChunks) && (transfer.sent - transfer.acked < this.sendWindow)) {
+			byte[] chunk = transfer.chunks.get(transfer.sent);
+			if (transfer.header.compressed)
+				chunk = this.codec.compress(chunk, 0, chunk.length);
+			transfer.receiverProxy.tell(new BytesMessage(transfer.header.id, transfer.sent, chunk), this.self());
+			transfer.sent++;
 		}
+	}
+
+	private void handle(AckMessage message) {
+		OutgoingTransfer transfer = this.outgoing.get(message.getId());
+		if (transfer == null)
+			return;
 
-		//end of message, all pieces have been send
-		receiverProxy.tell(new BytesMessage<>(this.sender(), message.getReceiver()), this.self());
+		transfer.lastActivity = System.currentTimeMillis();
+		transfer.acked = Math.max(transfer.acked, message.getReceived());
+		if (transfer.acked < transfer.numChunks)
+			this.sendChunks(transfer);
+		else
+			this.outgoing.remove(message.getId());
 	}
 
-	private void handle(byte[] message) {
-		this.messages.add(message);
+	private void handle(TransferMessage message) {
+		if (message.isStream()) {
+			this.incomingStreams.put(this.sender(), new IncomingStream(message));
+			return;
+		}
+
+		this.incoming.put(new TransferKey(this.sender(), message.getId()), new IncomingTransfer(message));
 	}
 
-	private void handle(BytesMessage<?> message) {
-		//join all messages to get complete message
-		ByteArrayOutputStream stream = new ByteArrayOutputStream();
-		for(byte[] i: this.messages) {
+	private void handle(BytesMessage message) {
+		TransferKey key = new TransferKey(this.sender(), message.getId());
+		IncomingTransfer transfer = this.incoming.get(key);
+		if (transfer == null) {
+			this.log().warning("Dropped a chunk of the unknown or expired transfer {} from {}", message.getId(), this.sender());
+			return;
+		}
+
+		byte[] bytes = message.getBytes();
+		int from = message.getIndex() * transfer.header.chunkSize;
+		if (transfer.header.compressed) {
 			try {
-				stream.write(i);
-			} catch (IOException e) {
-				e.printStackTrace();
+				this.codec.decompress(bytes, transfer.payload, from, Math.min(transfer.header.chunkSize, transfer.header.length - from));
+			} catch (DataFormatException e) {
+				this.log().error(e, "Discarded transfer {} from {}", message.getId(), this.sender());
+				this.incoming.remove(key);
+				return;
 			}
+		} else {
+			System.arraycopy(bytes, 0, transfer.payload, from, bytes.length);
+		}
+		transfer.received++;
+		transfer.lastActivity = System.currentTimeMillis();
+
+		// chunks of one transfer arrive in order, so the number of received chunks acknowledges all of them
+		this.sender().tell(new AckMessage(message.getId(), transfer.received), this.self());
+
+		if (transfer.received < transfer.numChunks)
+			return;
+
+		this.incoming.remove(key);
+		this.deliver(transfer.header, transfer.payload);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void handle(SourceRef<?> message) {
+		IncomingStream stream = this.incomingStreams.remove(this.sender());
+		if (stream == null) {
+			this.log().warning("Dropped a stream ref without a transfer from {}", this.sender());
+			return;
 		}
-		byte[] buffer = stream.toByteArray();
-		try {
-			stream.close();
-		} catch (IOException e) {
-			e.printStackTrace();
+		TransferMessage header = stream.header;
+
+		// assemble the chunks into one preallocated buffer as the stream delivers them
+		byte[] payload = new byte[header.length];
+		ChunkCodec codec = header.compressed ? new ChunkCodec() : null;	// the stream decompresses on its own thread, so it cannot share the actor's codec
+		ActorRef self = this.self();
+		((SourceRef<ByteString>) message).getSource()
+				.runWith(Sink.<Integer, ByteString>fold(0, (offset, bytes) -> {
+					int length = Math.min(header.chunkSize, header.length - offset);
+					if (header.compressed)
+						codec.decompress(bytes.toArray(), payload, offset, length);
+					else
+						bytes.asByteBuffer().get(payload, offset, length);
+					return offset + length;
+				}), this.materializer)
+				.whenComplete((length, failure) -> {
+					if (codec != null)
+						codec.end();
+					self.tell(new StreamCompletedMessage(header, payload, failure), ActorRef.noSender());
+				});
+	}
+
+	private void handle(StreamCompletedMessage message) {
+		if (message.getFailure() != null) {
+			this.log().error(message.getFailure(), "Discarded transfer {} from {}", message.getHeader().getId(), message.getHeader().getSender());
+			return;
 		}
 
-		//deserialize message
-		Kryo kryo = new Kryo();
-		FieldSerializer fieldSerializer = new FieldSerializer(kryo, LargeMessage.class);
-		//deserialize message, receiver attribute is not serialized
-		fieldSerializer.removeField("receiver");
-		kryo.register(LargeMessage.class, fieldSerializer);
+		this.deliver(message.getHeader(), message.getPayload());
+	}
 
-		Input input = new Input(new ByteArrayInputStream(buffer));
-		LargeMessage deserializedMessage = kryo.readObject(input, LargeMessage.class);
-		input.close();
+	private void deliver(TransferMessage header, byte[] payload) {
+		//deserialize message straight from the assembled payload, receiver attribute is not serialized
+		LargeMessage<?> deserializedMessage = KRYO.fromBytes(payload, LargeMessage.class);
 
-		message.getReceiver().tell(deserializedMessage.getMessage(), message.getSender());
+		header.receiver.tell(deserializedMessage.getMessage(), header.sender);
+	}
+
+	private void handle(SweepMessage message) {
+		// transfers whose peer went silent would otherwise hold their payloads forever
+		long deadline = System.currentTimeMillis() - this.transferTimeout;
+
+		Iterator<OutgoingTransfer> outgoingIterator = this.outgoing.values().iterator();
+		while (outgoingIterator.hasNext()) {
+			OutgoingTransfer transfer = outgoingIterator.next();
+			if (transfer.lastActivity < deadline) {
+				this.log().warning("Aborted transfer {} to {} after {} of {} chunks were acknowledged", transfer.header.id, transfer.header.receiver, transfer.acked, transfer.numChunks);
+				outgoingIterator.remove();
+			}
+		}
+
+		Iterator<IncomingTransfer> incomingIterator = this.incoming.values().iterator();
+		while (incomingIterator.hasNext()) {
+			IncomingTransfer transfer = incomingIterator.next();
+			if (transfer.lastActivity < deadline) {
+				this.log().warning("Discarded transfer {} from {} after {} of {} chunks were received", transfer.header.id, transfer.header.sender, transfer.received, transfer.numChunks);
+				incomingIterator.remove();
+			}
+		}
+
+		// a header whose stream ref got lost would otherwise stay until its sending proxy offers the next stream
+		Iterator<IncomingStream> streamIterator = this.incomingStreams.values().iterator();
+		while (streamIterator.hasNext()) {
+			IncomingStream stream = streamIterator.next();
+			if (stream.arrival < deadline) {
+				this.log().warning("Discarded transfer {} from {} whose stream ref never arrived", stream.header.id, stream.header.sender);
+				streamIterator.remove();
+			}
+		}
 	}
 }
@@ -0,0 +1,25 @@
+package de.hpi.ddm.configuration;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Rejects chunk sizes outside of 64 to 256 KB; smaller chunks cost a message per few KB,
+ * larger ones block the transport's large message channel for too long.
+ */
+public class ChunkSize implements IParameterValidator {
+
+	public static final int MIN = 64 * 1024;
+	public static final int MAX = 256 * 1024;
+
+	@Override
+	public void validate(String name, String value) throws ParameterException {
+		try {
+			int chunkSize = Integer.parseInt(value);
+			if ((chunkSize < MIN) || (chunkSize > MAX))
+				throw new ParameterException("Parameter " + name + " should be between " + MIN + " and " + MAX + " (found " + value + ")");
+		} catch (NumberFormatException e) {
+			throw new ParameterException("Parameter " + name + " should be a number (found " + value + ")");
+		}
+	}
+}
@@ -14,5 +14,20 @@ public abstract class Command {
 
 	@Parameter(names = { "-w", "--numWorkers" }, description = "The number of workers (indexers/validators) to start locally; should be at least one if the algorithm is started standalone (otherwise there are no workers to run the discovery)", required = false)
 	int numWorkers = ConfigurationSingleton.get().getNumWorkers();
+
+	@Parameter(names = { "-cs", "--chunkSize" }, description = "Size of the chunks (in bytes) into which the large message proxy splits its messages; must be 64 to 256 KB (65536 to 262144), which fit the transport's frames best; stream ref chunks are capped below the transport's maximum frame size", required = false, validateWith = ChunkSize.class)
+	int chunkSize = ConfigurationSingleton.get().getChunkSize();
+
+	@Parameter(names = { "-sw", "--sendWindow" }, description = "The number of chunks that a large message proxy sends ahead of the receiver's acknowledgements; at least 1", required = false, validateWith = PositiveInt.class)
+	int sendWindow = ConfigurationSingleton.get().getSendWindow();
+
+	@Parameter(names = { "-tt", "--transferTimeout" }, description = "The number of seconds after which a large message proxy abandons a transfer whose peer went silent; at least 1", required = false, validateWith = PositiveInt.class)
+	int transferTimeout = ConfigurationSingleton.get().getTransferTimeout();
+
+	@Parameter(names = { "-sr", "--streamRefs" }, description = "Let the large message proxy offer its payloads as stream refs that the receiving proxy pulls instead of sending acknowledged chunks", required = false)
+	boolean streamRefs = ConfigurationSingleton.get().isStreamRefs();
+
+	@Parameter(names = { "-c", "--compression" }, description = "Let the large message proxy compress the chunks of payloads whose sample compresses well, which speeds up transfers over slow links", required = false)
+	boolean compression = ConfigurationSingleton.get().isCompression();
 	
 }
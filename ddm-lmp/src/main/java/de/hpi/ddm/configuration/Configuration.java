@@ -23,6 +23,12 @@ public class Configuration {
 	
 	private int dataSize = 20; 						// Size of the data message (in MB) with which each worker should be initialized
 	
+	private int chunkSize = 128 * 1024;				// Size of the chunks (in bytes) into which the large message proxy splits its messages; 64 to 256 KB, which fit the transport's frames best; stream ref chunks are capped below the transport's maximum frame size
+	private int sendWindow = 8;						// The number of chunks that a large message proxy sends ahead of the receiver's acknowledgements
+	private int transferTimeout = 60;				// The number of seconds after which a large message proxy abandons a transfer whose peer went silent
+	private boolean streamRefs = false;				// Let the large message proxy offer its payloads as stream refs that the receiving proxy pulls instead of sending acknowledged chunks
+	private boolean compression = false;			// Let the large message proxy compress the chunks of payloads whose sample compresses well, which speeds up transfers over slow links
+	
 	private static String getDefaultHost() {
         try {
             return InetAddress.getLocalHost().getHostAddress();
@@ -35,6 +41,11 @@ public class Configuration {
 		this.host = commandMaster.host;
 		this.port = commandMaster.port;
 		this.numWorkers = commandMaster.numWorkers;
+		this.chunkSize = commandMaster.chunkSize;
+		this.sendWindow = commandMaster.sendWindow;
+		this.transferTimeout = commandMaster.transferTimeout;
+		this.streamRefs = commandMaster.streamRefs;
+		this.compression = commandMaster.compression;
 		this.dataSize = commandMaster.dataSize;
 	}
 
@@ -44,5 +55,10 @@ public class Configuration {
 		this.masterHost = commandSlave.masterhost;
 		this.masterPort = commandSlave.masterport;
 		this.numWorkers = commandSlave.numWorkers;
+		this.chunkSize = commandSlave.chunkSize;
+		this.sendWindow = commandSlave.sendWindow;
+		this.transferTimeout = commandSlave.transferTimeout;
+		this.streamRefs = commandSlave.streamRefs;
+		this.compression = commandSlave.compression;
 	}
 }
@@ -0,0 +1,86 @@
+package de.hpi.ddm.structures;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class ChunkCodec {
+
+	private static final int SAMPLES = 4;				// the number of slices that are compressed to estimate the compression ratio of a payload
+	private static final int SAMPLE_SIZE = 16 * 1024;	// the number of bytes per slice
+
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final Inflater inflater = new Inflater();
+	private byte[] buffer = new byte[SAMPLE_SIZE];
+
+	/**
+	 * Estimate the compression ratio of a chunked payload from a few evenly spread slices.
+	 * @param chunks the chunks of the payload whose compression ratio is to be estimated
+	 * @return the number of uncompressed bytes per compressed byte of the sampled slices
+	 */
+	public double sampleRatio(List<byte[]> chunks) {
+		long uncompressed = 0;
+		long compressed = 0;
+		for (int sample = 0; sample < SAMPLES; sample++) {
+			// a slice is taken from the start of its chunk; chunks of small payloads are sampled more than once
+			byte[] chunk = chunks.get(sample * (chunks.size() - 1) / (SAMPLES - 1));
+			int sampleSize = Math.min(SAMPLE_SIZE, chunk.length);
+			uncompressed += sampleSize;
+			compressed += this.compress(chunk, 0, sampleSize).length;
+		}
+		return (double) uncompressed / Math.max(1, compressed);
+	}
+
+	/**
+	 * Compress a range of bytes into an exactly sized array.
+	 * @param bytes the array that holds the range
+	 * @param offset the start of the range
+	 * @param length the number of bytes in the range
+	 * @return the compressed range
+	 */
+	public byte[] compress(byte[] bytes, int offset, int length) {
+		this.deflater.reset();
+		this.deflater.setInput(bytes, offset, length);
+		this.deflater.finish();
+
+		int size = 0;
+		while (!this.deflater.finished()) {
+			// incompressible ranges come out slightly larger than they went in
+			if (size == this.buffer.length)
+				this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+			size += this.deflater.deflate(this.buffer, size, this.buffer.length - size);
+		}
+		return Arrays.copyOf(this.buffer, size);
+	}
+
+	/**
+	 * Decompress a compressed range into its place in the target array.
+	 * @param bytes the compressed range
+	 * @param target the array to decompress into
+	 * @param offset the position of the range in the target array
+	 * @param length the number of bytes of the uncompressed range
+	 * @throws DataFormatException if the bytes are no compressed range of the given length
+	 */
+	public void decompress(byte[] bytes, byte[] target, int offset, int length) throws DataFormatException {
+		this.inflater.reset();
+		this.inflater.setInput(bytes);
+
+		int size = 0;
+		while (size < length) {
+			int inflated = this.inflater.inflate(target, offset + size, length - size);
+			if ((inflated == 0) && (this.inflater.finished() || this.inflater.needsInput()))
+				throw new DataFormatException("Compressed range ends after " + size + " of " + length + " bytes");
+			size += inflated;
+		}
+	}
+
+	/**
+	 * Release the native resources of this ChunkCodec; it must not be used afterwards.
+	 */
+	public void end() {
+		this.deflater.end();
+		this.inflater.end();
+	}
+}
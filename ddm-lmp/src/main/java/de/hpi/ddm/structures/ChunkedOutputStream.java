@@ -0,0 +1,72 @@
+package de.hpi.ddm.structures;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ChunkedOutputStream extends OutputStream {
+
+	private final int chunkSize;
+	private final List<byte[]> chunks = new ArrayList<>();
+	private byte[] chunk = null;	// the chunk that is being filled
+	private int position = 0;		// the number of bytes in the chunk that is being filled
+	private long size = 0;
+
+	/**
+	 * Creates a stream that cuts everything written to it into chunks of the given size.
+	 * @param chunkSize the number of bytes per chunk; only the last chunk may be smaller
+	 */
+	public ChunkedOutputStream(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public void write(int b) {
+		this.next();
+		this.chunk[this.position++] = (byte) b;
+		this.size++;
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		while (length > 0) {
+			this.next();
+			int copied = Math.min(length, this.chunkSize - this.position);
+			System.arraycopy(bytes, offset, this.chunk, this.position, copied);
+			this.position += copied;
+			this.size += copied;
+			offset += copied;
+			length -= copied;
+		}
+	}
+
+	private void next() {
+		if ((this.chunk != null) && (this.position < this.chunkSize))
+			return;
+
+		this.chunk = new byte[this.chunkSize];
+		this.chunks.add(this.chunk);
+		this.position = 0;
+	}
+
+	/**
+	 * @return the number of bytes written to this stream
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	/**
+	 * Closes the chunks; nothing must be written to this stream afterwards.
+	 * @return the chunks in the order of their bytes, each of them full except for the last
+	 */
+	public List<byte[]> toChunks() {
+		// only the last chunk is copied, and only if it is partially filled
+		if ((this.chunk != null) && (this.position < this.chunkSize)) {
+			this.chunk = Arrays.copyOf(this.chunk, this.position);
+			this.chunks.set(this.chunks.size() - 1, this.chunk);
+		}
+		return this.chunks;
+	}
+}
@@ -1,14 +1,23 @@
 package de.hpi.ddm.structures;
 
 import com.twitter.chill.KryoInstantiator;
-import com.twitter.chill.KryoPool;
 
 public class KryoPoolSingleton {
 
 	private static final int POOL_SIZE = 10;
-	private static final KryoPool kryo = KryoPool.withByteArrayOutputStream(POOL_SIZE, new KryoInstantiator());
-	
-	public static KryoPool get() {
+	private static final int BUFFER_SIZE = 64 * 1024;	// output buffers only stage bytes on their way into the target stream, so they never grow
+	private static final StreamingKryoPool kryo = create(new KryoInstantiator());
+
+	public static StreamingKryoPool get() {
 		return kryo;
 	}
+
+	/**
+	 * Creates a pool of kryo instances that serialize through small, reused output buffers.
+	 * @param instantiator creates the pooled kryo instances, e.g., with pre-registered serializers
+	 * @return the new pool
+	 */
+	public static StreamingKryoPool create(KryoInstantiator instantiator) {
+		return new StreamingKryoPool(POOL_SIZE, instantiator, BUFFER_SIZE);
+	}
 }
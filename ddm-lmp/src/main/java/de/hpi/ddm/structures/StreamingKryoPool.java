@@ -0,0 +1,65 @@
+package de.hpi.ddm.structures;
+
+import java.io.OutputStream;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.twitter.chill.KryoInstantiator;
+import com.twitter.chill.KryoPool;
+import com.twitter.chill.SerDeState;
+
+public class StreamingKryoPool extends KryoPool {
+
+	private final KryoInstantiator instantiator;
+	private final int bufferSize;
+
+	/**
+	 * Creates a pool of kryo instances that serialize into target streams through small, fixed output buffers.
+	 * @param size the maximum number of pooled kryo instances
+	 * @param instantiator creates the pooled kryo instances, e.g., with pre-registered serializers
+	 * @param bufferSize the number of bytes that an output buffer stages before it flushes them into the target stream
+	 */
+	public StreamingKryoPool(int size, KryoInstantiator instantiator, int bufferSize) {
+		super(size);
+		this.instantiator = instantiator;
+		this.bufferSize = bufferSize;
+	}
+
+	@Override
+	protected SerDeState newInstance() {
+		return new StreamingSerDeState(this.instantiator.newKryo(), this.bufferSize);
+	}
+
+	/**
+	 * Serializes an object without its class straight into a stream, so that no array of the whole serialized object is needed.
+	 * @param object the object to serialize
+	 * @param stream the stream that receives the serialized object
+	 */
+	public void writeWithoutClass(Object object, OutputStream stream) {
+		StreamingSerDeState state = (StreamingSerDeState) this.borrow();
+		try {
+			state.writeObject(object, stream);
+		} finally {
+			this.release(state);
+		}
+	}
+
+	private static class StreamingSerDeState extends SerDeState {
+
+		private StreamingSerDeState(Kryo kryo, int bufferSize) {
+			super(kryo, new Input(), new Output(bufferSize));
+		}
+
+		private void writeObject(Object object, OutputStream stream) {
+			// a full buffer flushes into the stream instead of growing
+			this.output.setOutputStream(stream);
+			try {
+				this.kryo.writeObject(this.output, object);
+				this.output.flush();
+			} finally {
+				this.output.setOutputStream(null);
+			}
+		}
+	}
+}
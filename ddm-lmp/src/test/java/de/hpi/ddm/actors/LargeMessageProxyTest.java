@@ -1,8 +1,12 @@
 package de.hpi.ddm.actors;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.time.Duration;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -46,18 +50,61 @@ public class LargeMessageProxyTest {
 		}
 	}
 
+	// stands in for a receiving proxy and hands everything that the sending proxy tells it to the parent
+	static class ProbeActor extends AbstractLoggingActor {
+
+		public static Props props(ActorRef parent) {
+			return Props.create(ProbeActor.class, () -> new ProbeActor(parent));
+		}
+
+		public ProbeActor(ActorRef parent) {
+			this.parent = parent;
+		}
+
+		ActorRef parent = null;
+		
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.match(Object.class, message -> this.parent.tell(message, this.self()))
+					.build();
+		}
+	}
+
+	static class ProbedReceiver extends AbstractLoggingActor {
+
+		public static Props props(ActorRef parent) {
+			return Props.create(ProbedReceiver.class, () -> new ProbedReceiver(parent));
+		}
+
+		public ProbedReceiver(ActorRef parent) {
+			this.largeMessageProxy = this.context().actorOf(ProbeActor.props(parent), LargeMessageProxy.DEFAULT_NAME);
+		}
+
+		ActorRef largeMessageProxy = null;
+		
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder().build();
+		}
+	}
+
 	@Before
 	public void setUp() throws Exception {
+		system = createSystem(ConfigFactory.empty());
+	}
+
+	private static ActorSystem createSystem(Config overrides) {
 		final Configuration c = ConfigurationSingleton.get();
 		
-		final Config config = ConfigFactory.parseString(
+		final Config config = overrides.withFallback(ConfigFactory.parseString(
 				"akka.remote.artery.canonical.hostname = \"" + c.getHost() + "\"\n" +
 				"akka.remote.artery.canonical.port = " + c.getPort() + "\n" +
 				"akka.cluster.roles = [" + MasterSystem.MASTER_ROLE + "]\n" +
 				"akka.cluster.seed-nodes = [\"akka://" + c.getActorSystemName() + "@" + c.getMasterHost() + ":" + c.getMasterPort() + "\"]")
-			.withFallback(ConfigFactory.load("application"));
+			.withFallback(ConfigFactory.load("application")));
 		
-		system = ActorSystem.create(c.getActorSystemName(), config);
+		return ActorSystem.create(c.getActorSystemName(), config);
 	}
 
 	@After
@@ -65,6 +112,16 @@ public class LargeMessageProxyTest {
 		TestKit.shutdownActorSystem(system);
 	}
 
+	// Skips the chunks of earlier transfers up to the next transfer's header
+	private static LargeMessageProxy.TransferMessage expectHeader(TestKit kit) {
+		while (true) {
+			Object message = kit.receiveOne(Duration.ofSeconds(2));
+			assertNotNull(message);
+			if (message instanceof LargeMessageProxy.TransferMessage)
+				return (LargeMessageProxy.TransferMessage) message;
+		}
+	}
+
 	@Test
 	public void testSmallMessageSending() {
 		new TestKit(system) {
@@ -115,4 +172,187 @@ public class LargeMessageProxyTest {
 			}
 		};
 	}
+	
+	@Test
+	public void testChunkedMessageSending() {
+		new TestKit(system) {
+			{
+				ActorRef sender = system.actorOf(TestActor.props(this.getRef()), "sender");
+				ActorRef receiver = system.actorOf(TestActor.props(this.getRef()), "receiver");
+				
+				within(Duration.ofSeconds(5), () -> {
+					// Test if a message that spans many more chunks than the send window gets passed and reassembled in order
+					int numChunks = 4 * ConfigurationSingleton.get().getSendWindow() + 1;
+					byte[] payload = new byte[numChunks * ConfigurationSingleton.get().getChunkSize()];
+					new Random(42).nextBytes(payload);
+					LargeMessageProxy.LargeMessage<byte[]> payloadMessage = new LargeMessageProxy.LargeMessage<byte[]>(payload, receiver);
+					
+					sender.tell(payloadMessage, this.getRef());
+					assertArrayEquals(payload, this.expectMsgClass(byte[].class));
+					assertTrue(this.getLastSender().equals(receiver));
+					
+					expectNoMessage();
+					return null;
+				});
+			}
+		};
+	}
+	
+	@Test
+	public void testConcurrentMessageSending() {
+		new TestKit(system) {
+			{
+				ActorRef firstSender = system.actorOf(TestActor.props(this.getRef()), "firstSender");
+				ActorRef secondSender = system.actorOf(TestActor.props(this.getRef()), "secondSender");
+				ActorRef receiver = system.actorOf(TestActor.props(this.getRef()), "receiver");
+				
+				within(Duration.ofSeconds(5), () -> {
+					// Test if two multi-chunk messages that stream into the same proxy at the same time get reassembled separately
+					int length = 2 * ConfigurationSingleton.get().getSendWindow() * ConfigurationSingleton.get().getChunkSize();
+					byte[] firstPayload = new byte[length];
+					byte[] secondPayload = new byte[length + 1];
+					new Random(1).nextBytes(firstPayload);
+					new Random(2).nextBytes(secondPayload);
+					
+					firstSender.tell(new LargeMessageProxy.LargeMessage<byte[]>(firstPayload, receiver), this.getRef());
+					secondSender.tell(new LargeMessageProxy.LargeMessage<byte[]>(secondPayload, receiver), this.getRef());
+					
+					for (int i = 0; i < 2; i++) {
+						byte[] payload = this.expectMsgClass(byte[].class);
+						assertArrayEquals((payload.length == length) ? firstPayload : secondPayload, payload);
+						assertTrue(this.getLastSender().equals(receiver));
+					}
+					
+					expectNoMessage();
+					return null;
+				});
+			}
+		};
+	}
+	
+	@Test
+	public void testStreamedMessageSending() {
+		// the stream ref and its protocol messages pass the serializers as if the proxies were remote
+		TestKit.shutdownActorSystem(system);
+		system = createSystem(ConfigFactory.parseString("akka.actor.serialize-messages = on"));
+		
+		ConfigurationSingleton.get().setStreamRefs(true);
+		try {
+			new TestKit(system) {
+				{
+					ActorRef sender = system.actorOf(TestActor.props(this.getRef()), "sender");
+					ActorRef receiver = system.actorOf(TestActor.props(this.getRef()), "receiver");
+					
+					within(Duration.ofSeconds(5), () -> {
+						// Test if a multi-chunk message gets pulled through a stream ref and reassembled in order
+						byte[] payload = new byte[3 * ConfigurationSingleton.get().getChunkSize() + 1];
+						new Random(42).nextBytes(payload);
+						LargeMessageProxy.LargeMessage<byte[]> payloadMessage = new LargeMessageProxy.LargeMessage<byte[]>(payload, receiver);
+						
+						sender.tell(payloadMessage, this.getRef());
+						assertArrayEquals(payload, this.expectMsgClass(byte[].class));
+						assertTrue(this.getLastSender().equals(receiver));
+						
+						expectNoMessage();
+						return null;
+					});
+				}
+			};
+		} finally {
+			ConfigurationSingleton.get().setStreamRefs(false);
+		}
+	}
+	
+	@Test
+	public void testCompressionIsChosenBySample() {
+		ConfigurationSingleton.get().setCompression(true);
+		try {
+			new TestKit(system) {
+				{
+					ActorRef sender = system.actorOf(TestActor.props(this.getRef()), "sender");
+					ActorRef receiver = system.actorOf(ProbedReceiver.props(this.getRef()), "receiver");
+					
+					// Test if a well compressible payload is announced as compressed and a random one is not
+					StringBuffer longMessageBuffer = new StringBuffer();
+					while (longMessageBuffer.length() < 3 * ConfigurationSingleton.get().getChunkSize())
+						longMessageBuffer.append("<content>");
+					sender.tell(new LargeMessageProxy.LargeMessage<String>(longMessageBuffer.toString(), receiver), this.getRef());
+					assertTrue(expectHeader(this).isCompressed());
+					
+					byte[] payload = new byte[3 * ConfigurationSingleton.get().getChunkSize()];
+					new Random(42).nextBytes(payload);
+					sender.tell(new LargeMessageProxy.LargeMessage<byte[]>(payload, receiver), this.getRef());
+					assertFalse(expectHeader(this).isCompressed());
+				}
+			};
+		} finally {
+			ConfigurationSingleton.get().setCompression(false);
+		}
+	}
+	
+	@Test
+	public void testCompressedStreamedMessageSending() {
+		TestKit.shutdownActorSystem(system);
+		system = createSystem(ConfigFactory.parseString("akka.actor.serialize-messages = on"));
+		
+		ConfigurationSingleton.get().setCompression(true);
+		ConfigurationSingleton.get().setStreamRefs(true);
+		try {
+			new TestKit(system) {
+				{
+					ActorRef sender = system.actorOf(TestActor.props(this.getRef()), "sender");
+					ActorRef receiver = system.actorOf(TestActor.props(this.getRef()), "receiver");
+					
+					within(Duration.ofSeconds(5), () -> {
+						// Test if a well compressible multi-chunk message gets pulled through a stream ref in compressed chunks and restored
+						StringBuffer longMessageBuffer = new StringBuffer();
+						while (longMessageBuffer.length() < 3 * ConfigurationSingleton.get().getChunkSize() + 1)
+							longMessageBuffer.append("<content>");
+						String longMessage = longMessageBuffer.toString();
+						
+						sender.tell(new LargeMessageProxy.LargeMessage<String>(longMessage, receiver), this.getRef());
+						this.expectMsg(longMessage);
+						assertTrue(this.getLastSender().equals(receiver));
+						
+						expectNoMessage();
+						return null;
+					});
+				}
+			};
+		} finally {
+			ConfigurationSingleton.get().setStreamRefs(false);
+			ConfigurationSingleton.get().setCompression(false);
+		}
+	}
+	
+	@Test
+	public void testCompressedMessageSending() {
+		ConfigurationSingleton.get().setCompression(true);
+		try {
+			new TestKit(system) {
+				{
+					ActorRef sender = system.actorOf(TestActor.props(this.getRef()), "sender");
+					ActorRef receiver = system.actorOf(TestActor.props(this.getRef()), "receiver");
+					
+					within(Duration.ofSeconds(5), () -> {
+						// Test if a well compressible multi-chunk message gets passed in compressed chunks and restored
+						StringBuffer longMessageBuffer = new StringBuffer();
+						while (longMessageBuffer.length() < 3 * ConfigurationSingleton.get().getChunkSize())
+							longMessageBuffer.append("<content>");
+						String longMessage = longMessageBuffer.toString();
+						LargeMessageProxy.LargeMessage<String> longStringMessage = new LargeMessageProxy.LargeMessage<String>(longMessage, receiver);
+						
+						sender.tell(longStringMessage, this.getRef());
+						this.expectMsg(longMessage);
+						assertTrue(this.getLastSender().equals(receiver));
+						
+						expectNoMessage();
+						return null;
+					});
+				}
+			};
+		} finally {
+			ConfigurationSingleton.get().setCompression(false);
+		}
+	}
 }
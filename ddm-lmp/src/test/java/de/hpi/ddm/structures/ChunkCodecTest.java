@@ -0,0 +1,75 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ChunkCodecTest {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	private final ChunkCodec codec = new ChunkCodec();
+
+	private static byte[] text(int length) {
+		StringBuilder text = new StringBuilder();
+		while (text.length() < length)
+			text.append("<content>");
+		return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] random(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static List<byte[]> chunks(byte[] payload) {
+		ChunkedOutputStream stream = new ChunkedOutputStream(4 * CHUNK_SIZE);
+		stream.write(payload, 0, payload.length);
+		return stream.toChunks();
+	}
+
+	@After
+	public void tearDown() {
+		this.codec.end();
+	}
+
+	@Test
+	public void testSampleRatio() {
+		assertTrue(this.codec.sampleRatio(chunks(text(100000))) > 5);
+		assertTrue(this.codec.sampleRatio(chunks(random(100000))) < 1.1);
+
+		// payloads smaller than a sample are sampled as a whole
+		assertTrue(this.codec.sampleRatio(chunks(text(100))) > 1);
+	}
+
+	@Test
+	public void testRoundTripAtChunkBoundaries() throws DataFormatException {
+		// the last chunk is full, a single byte or a partial chunk
+		for (int length : new int[] { 3 * CHUNK_SIZE, 3 * CHUNK_SIZE + 1, 3 * CHUNK_SIZE - 1 }) {
+			for (byte[] payload : new byte[][] { text(length), random(length) }) {
+				byte[] restored = new byte[payload.length];
+				for (int from = 0; from < payload.length; from += CHUNK_SIZE) {
+					int chunkLength = Math.min(CHUNK_SIZE, payload.length - from);
+					this.codec.decompress(this.codec.compress(payload, from, chunkLength), restored, from, chunkLength);
+				}
+				assertArrayEquals(payload, restored);
+			}
+		}
+	}
+
+	@Test(expected = DataFormatException.class)
+	public void testTruncatedChunksAreRejected() throws DataFormatException {
+		byte[] compressed = this.codec.compress(random(CHUNK_SIZE), 0, CHUNK_SIZE);
+		byte[] truncated = new byte[compressed.length / 2];
+		System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+		this.codec.decompress(truncated, new byte[CHUNK_SIZE], 0, CHUNK_SIZE);
+	}
+}
@@ -0,0 +1,43 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ChunkedOutputStreamTest {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	@Test
+	public void testChunksAtBoundaries() {
+		// the last chunk is full, a single byte or a partial chunk
+		for (int length : new int[] { 3 * CHUNK_SIZE, 3 * CHUNK_SIZE + 1, 3 * CHUNK_SIZE - 1 }) {
+			byte[] payload = new byte[length];
+			new Random(42).nextBytes(payload);
+
+			// writes of odd sizes and single bytes straddle the chunk boundaries
+			ChunkedOutputStream stream = new ChunkedOutputStream(CHUNK_SIZE);
+			int from = 0;
+			while (from < length) {
+				int size = Math.min(777, length - from);
+				stream.write(payload, from, size);
+				from += size;
+				if (from < length)
+					stream.write(payload[from++]);
+			}
+			assertEquals(length, stream.size());
+
+			List<byte[]> chunks = stream.toChunks();
+			assertEquals((length + CHUNK_SIZE - 1) / CHUNK_SIZE, chunks.size());
+			for (int index = 0; index < chunks.size(); index++) {
+				int offset = index * CHUNK_SIZE;
+				assertArrayEquals(Arrays.copyOfRange(payload, offset, Math.min(offset + CHUNK_SIZE, length)), chunks.get(index));
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import de.hpi.ddm.structures.DigestIndex;
+import de.hpi.ddm.structures.Permutations;
+import de.hpi.ddm.structures.Sha256Engine;
+
+/**
+ * Test data that resembles the password datasets: alphabets are prefixes of the dataset's
+ * eleven chars, and hints are random permutations of them.
+ */
+class Alphabets {
+
+	static final String ALPHABET = "ABCDEFGHIJK";
+
+	private static final long SEED = 42;
+
+	/**
+	 * Draws random permutations of a sequence.
+	 * @param sequence the chars to permute
+	 * @param count the number of permutations to draw
+	 * @return the drawn permutations
+	 */
+	static List<String> randomPermutations(String sequence, int count) {
+		Random random = new Random(SEED);
+		byte[] elements = Sha256Engine.toBytes(sequence);
+		byte[] permutation = new byte[elements.length];
+		long permutations = Permutations.factorial(elements.length);
+
+		List<String> drawn = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Permutations.unrank(elements, (random.nextLong() & Long.MAX_VALUE) % permutations, permutation);
+			drawn.add(new String(permutation));
+		}
+		return drawn;
+	}
+
+	/**
+	 * Indexes the digests of plaintexts in the legacy hint map, using the list positions as IDs.
+	 */
+	static HashMap<String, LinkedList<Integer>> legacyIndex(List<String> plaintexts) {
+		HashMap<String, LinkedList<Integer>> index = new HashMap<>();
+		for (int i = 0; i < plaintexts.size(); i++)
+			index.computeIfAbsent(LegacyKernels.hash(plaintexts.get(i)), digest -> new LinkedList<>()).add(i);
+		return index;
+	}
+
+	/**
+	 * Indexes the digests of plaintexts in a {@link DigestIndex}, using the list positions as IDs.
+	 */
+	static DigestIndex digestIndex(List<String> plaintexts) {
+		DigestIndex.Builder builder = DigestIndex.builder();
+		for (int i = 0; i < plaintexts.size(); i++)
+			builder.add(LegacyKernels.hash(plaintexts.get(i)), i);
+		return builder.build();
+	}
+}
@@ -0,0 +1,58 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.Sha256Engine;
+
+/**
+ * Hashes one candidate string of the given length.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+	@Param({ "8", "10", "11" })
+	public int length;
+
+	private String candidate;
+	private byte[] candidateBytes;
+	private Sha256Engine engine;
+
+	@Setup
+	public void setup() {
+		this.candidate = Alphabets.ALPHABET.substring(0, this.length);
+		this.candidateBytes = Sha256Engine.toBytes(this.candidate);
+		this.engine = new Sha256Engine();
+	}
+
+	@Benchmark
+	public String legacyHash() {
+		return LegacyKernels.hash(this.candidate);
+	}
+
+	@Benchmark
+	public byte[] engineHash() {
+		return this.engine.hash(this.candidateBytes, this.candidateBytes.length);
+	}
+
+	@Benchmark
+	public String engineHashToHex() {
+		return Sha256Engine.toHex(this.engine.hash(this.candidateBytes, this.candidateBytes.length));
+	}
+}
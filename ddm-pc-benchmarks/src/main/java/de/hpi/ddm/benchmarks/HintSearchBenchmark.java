@@ -0,0 +1,83 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.hpi.ddm.structures.DigestIndex;
+import de.hpi.ddm.structures.PermutationSearch;
+import de.hpi.ddm.structures.Permutations;
+import de.hpi.ddm.structures.Sha256Engine;
+
+/**
+ * Tests all permutations of an alphabet that misses one char against the hints of a batch,
+ * i.e., the work of all hint messages for one missing char.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HintSearchBenchmark {
+
+	@Param({ "6", "8", "9" })
+	public int alphabetSize;
+
+	@Param({ "500" })
+	public int numHints;
+
+	private String sequence;
+	private HashMap<String, LinkedList<Integer>> legacyHints;
+	private DigestIndex hints;
+
+	@Setup
+	public void setup() {
+		String alphabet = Alphabets.ALPHABET.substring(0, this.alphabetSize);
+		this.sequence = alphabet.substring(1);
+
+		List<String> plaintexts = Alphabets.randomPermutations(this.sequence, this.numHints);
+		this.legacyHints = Alphabets.legacyIndex(plaintexts);
+		this.hints = Alphabets.digestIndex(plaintexts);
+	}
+
+	@Benchmark
+	public List<Integer> legacyHeapPermutation() {
+		char[] chars = this.sequence.toCharArray();
+		List<Integer> found = new ArrayList<>();
+		LegacyKernels.heapPermutation(chars, chars.length, chars.length, new HashSet<>(), this.legacyHints, found);
+		return found;
+	}
+
+	@Benchmark
+	public void permutationSearch(Blackhole blackhole) {
+		long permutations = Permutations.factorial(this.sequence.length());
+		new PermutationSearch(Sha256Engine.toBytes(this.sequence), 0, permutations, Long.MAX_VALUE, this.hints, new AtomicBoolean(false),
+				(id, permutation) -> blackhole.consume(id)).invoke();
+	}
+
+	@Benchmark
+	public void enumerateOnly(Blackhole blackhole) {
+		byte[] permutation = Sha256Engine.toBytes(this.sequence);
+		do {
+			blackhole.consume(permutation[0]);
+		} while (Permutations.next(permutation));
+	}
+}
@@ -0,0 +1,88 @@
+package de.hpi.ddm.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The string-based kernels that the workers used before they switched to reusable digest
+ * engines, rank ranges and digest indexes. They are kept here, unchanged except for
+ * returning their findings instead of messaging the master, as the baseline that every
+ * optimization of the kernels is measured against.
+ */
+public class LegacyKernels {
+
+	public static String hash(String line) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hashedBytes = digest.digest(String.valueOf(line).getBytes("UTF-8"));
+			
+			StringBuffer stringBuffer = new StringBuffer();
+			for (int i = 0; i < hashedBytes.length; i++) {
+				stringBuffer.append(Integer.toString((hashedBytes[i] & 0xff) + 0x100, 16).substring(1));
+			}
+			return stringBuffer.toString();
+		}
+		catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+	}
+
+	// Generating all permutations of an array using Heap's Algorithm
+	// the permutations are hashed and compared to the hints
+	// the indexes of decrypted hints are added to found
+	public static void heapPermutation(char[] a, int size, int n, HashSet<String> l, HashMap<String, LinkedList<Integer>> hints, List<Integer> found) {
+		// If size is 1, store the obtained permutation
+		if (size == 1){
+			String sequence = hash(String.valueOf(a));
+
+			if(hints.containsKey(sequence)) {
+				found.addAll(hints.get(sequence));
+			}
+			l.add(sequence);
+		}
+
+		for (int i = 0; i < size; i++) {
+			heapPermutation(a, size - 1, n, l, hints, found);
+
+			// If size is odd, swap first and last element
+			if (size % 2 == 1) {
+				char temp = a[0];
+				a[0] = a[size - 1];
+				a[size - 1] = temp;
+			}
+
+			// If size is even, swap i-th and last element
+			else {
+				char temp = a[i];
+				a[i] = a[size - 1];
+				a[size - 1] = temp;
+			}
+		}
+	}
+
+	// Generating all possible strings of length k
+	// strings are hashed
+	public static void possibleKStrings(char[] set, String prefix, int n, int k, HashMap<String, String> l)
+	{
+		// Base case: k is 0, store prefix
+		if (k == 0)
+		{
+			l.put(hash(prefix), prefix);
+			return;
+		}
+
+		// One by one add all characters from set and recursively call for k equals to k-1
+		for (int i = 0; i < n; ++i)
+		{
+			// Next character of input added
+			String newPrefix = prefix + set[i];
+			// k is decreased, because we have added a new character
+			possibleKStrings(set, newPrefix, n, k - 1, l);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.DigestIndex;
+import de.hpi.ddm.structures.Sha256Engine;
+
+/**
+ * Looks up one hashed candidate in the hints of a batch; half of the probes are hits.
+ * The legacy path needs the digest as a hex string, the digest index takes the raw bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+	private static final int NUM_PROBES = 1024;
+
+	@Param({ "10", "1000", "100000" })
+	public int numHints;
+
+	private HashMap<String, LinkedList<Integer>> legacyHints;
+	private DigestIndex hints;
+	private String[] hexProbes;
+	private byte[][] probes;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		List<String> plaintexts = Alphabets.randomPermutations(Alphabets.ALPHABET, this.numHints + NUM_PROBES / 2);
+		this.legacyHints = Alphabets.legacyIndex(plaintexts.subList(0, this.numHints));
+		this.hints = Alphabets.digestIndex(plaintexts.subList(0, this.numHints));
+
+		// alternate between hints and plaintexts that are no hints
+		this.hexProbes = new String[NUM_PROBES];
+		this.probes = new byte[NUM_PROBES][];
+		for (int i = 0; i < NUM_PROBES; i++) {
+			String plaintext = (i % 2 == 0) ? plaintexts.get(i / 2 % this.numHints) : plaintexts.get(this.numHints + i / 2);
+			this.hexProbes[i] = LegacyKernels.hash(plaintext);
+			this.probes[i] = Sha256Engine.fromHex(this.hexProbes[i]);
+		}
+	}
+
+	@Benchmark
+	public boolean legacyHintMap() {
+		return this.legacyHints.containsKey(this.hexProbes[this.next++ & (NUM_PROBES - 1)]);
+	}
+
+	@Benchmark
+	public int digestIndex() {
+		return this.hints.find(this.probes[this.next++ & (NUM_PROBES - 1)]);
+	}
+}
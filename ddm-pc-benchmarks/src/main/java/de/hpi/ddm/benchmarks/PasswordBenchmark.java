@@ -0,0 +1,71 @@
+package de.hpi.ddm.benchmarks;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.ddm.structures.DigestIndex;
+import de.hpi.ddm.structures.Odometer;
+import de.hpi.ddm.structures.Sha256Engine;
+
+/**
+ * Brute-forces one password whose candidate space is all strings of the given length
+ * over the remaining chars; the password is the last candidate, so the whole space is hashed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordBenchmark {
+
+	@Param({ "2", "3", "4" })
+	public int alphabetSize;
+
+	@Param({ "6", "8" })
+	public int passwordLength;
+
+	private String chars;
+	private String password;
+	private DigestIndex passwords;
+	private Sha256Engine engine;
+
+	@Setup
+	public void setup() {
+		this.chars = Alphabets.ALPHABET.substring(0, this.alphabetSize);
+		this.password = String.join("", Collections.nCopies(this.passwordLength, this.chars.substring(this.alphabetSize - 1)));
+		this.passwords = Alphabets.digestIndex(Collections.singletonList(this.password));
+		this.engine = new Sha256Engine();
+	}
+
+	@Benchmark
+	public String legacyPossibleKStrings() {
+		HashMap<String, String> possiblePasswords = new HashMap<>();
+		LegacyKernels.possibleKStrings(this.chars.toCharArray(), "", this.alphabetSize, this.passwordLength, possiblePasswords);
+		return possiblePasswords.get(LegacyKernels.hash(this.password));
+	}
+
+	@Benchmark
+	public int odometer() {
+		Odometer candidates = new Odometer(Sha256Engine.toBytes(this.chars), this.passwordLength);
+		do {
+			int slot = this.passwords.find(this.engine.hash(candidates.candidate(), this.passwordLength));
+			if (slot >= 0)
+				return this.passwords.id(this.passwords.start(slot));
+		} while (candidates.next());
+		return -1;
+	}
+}
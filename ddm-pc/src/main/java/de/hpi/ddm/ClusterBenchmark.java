@@ -0,0 +1,130 @@
+package de.hpi.ddm;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.ActorSystem;
+import akka.cluster.Cluster;
+import de.hpi.ddm.configuration.CommandBenchmark;
+import de.hpi.ddm.configuration.Configuration;
+import de.hpi.ddm.configuration.ConfigurationSingleton;
+import de.hpi.ddm.configuration.DatasetDescriptor;
+import de.hpi.ddm.configuration.DatasetDescriptorSingleton;
+import de.hpi.ddm.structures.DatasetGenerator;
+import de.hpi.ddm.structures.NodeStatistics;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Cracks a synthetic dataset with one master and several slave actor systems that all run
+ * in this JVM and talk to each other over the loopback interface, and reports the wall
+ * time, the passwords per second and every node's hashes per second. The master starts
+ * the work only once all slaves joined, so that the measurement covers the full cluster.
+ * For multi-process or multi-machine measurements, start the slaves with the slave command
+ * and the master with --startPaused instead.
+ */
+public class ClusterBenchmark {
+
+	private static final String DATASET_NAME = "benchmark";
+
+	public static void run(CommandBenchmark command) throws Exception {
+		// the dataset and the results are only needed while the benchmark runs
+		Path directory = Files.createTempDirectory("ddm-benchmark");
+		try {
+			run(command, directory);
+		} finally {
+			List<Path> paths = new ArrayList<>();
+			try (Stream<Path> walk = Files.walk(directory)) {
+				walk.forEach(paths::add);
+			}
+			// the walk lists every directory before its contents
+			Collections.reverse(paths);
+			for (Path path : paths)
+				Files.deleteIfExists(path);
+		}
+	}
+
+	private static void run(CommandBenchmark command, Path directory) throws Exception {
+		final Configuration c = ConfigurationSingleton.get();
+
+		DatasetGenerator generator = new DatasetGenerator(command.getAlphabet(), command.getPasswordLength(), command.getNumHints(), command.getSeed());
+
+		List<String> plaintexts = new ArrayList<>();
+		try (BufferedWriter dataset = Files.newBufferedWriter(directory.resolve(DATASET_NAME + ".csv"));
+				StringWriter solutions = new StringWriter()) {
+			generator.write(dataset, solutions, command.getRecords());
+			for (String solution : solutions.toString().split("\n"))
+				plaintexts.add(solution.substring(solution.indexOf(';') + 1));
+		}
+
+		DatasetDescriptor datasetDescriptor = DatasetDescriptorSingleton.get();
+		datasetDescriptor.setDatasetPath(directory.toString() + File.separator);
+		datasetDescriptor.setDatasetName(DATASET_NAME);
+		datasetDescriptor.setDatasetEnding(".csv");
+		c.setOutputFile(directory.resolve("results.csv").toString());
+
+		// the master's node is up (and starts the work) only once all slaves joined
+		System.setProperty("akka.cluster.role." + SlaveSystem.SLAVE_ROLE + ".min-nr-of-members", String.valueOf(command.getNumSlaves()));
+		System.setProperty("akka.cluster.jmx.multi-mbeans-in-same-jvm", "on");
+		ConfigFactory.invalidateCaches();
+
+		// all systems share the configuration; only the ports differ, which are read when a system starts
+		List<String> names = new ArrayList<>();
+		List<ActorSystem> systems = new ArrayList<>();
+		int masterPort = c.getPort();
+		for (int i = 0; i < command.getNumSlaves(); i++) {
+			c.setPort(masterPort + 1 + i);
+			names.add(SlaveSystem.SLAVE_ROLE + i);
+			systems.add(SlaveSystem.start());
+		}
+		c.setPort(masterPort);
+
+		final AtomicLong startTime = new AtomicLong();
+		ActorSystem master = MasterSystem.start();
+		Cluster.get(master).registerOnMemberUp(() -> startTime.set(System.nanoTime()));
+		names.add(0, MasterSystem.MASTER_ROLE);
+		systems.add(0, master);
+
+		List<NodeStatistics> statistics = new ArrayList<>();
+		for (ActorSystem system : systems)
+			statistics.add(NodeStatistics.get(system));
+
+		Await.ready(master.whenTerminated(), Duration.Inf());
+		long endTime = System.nanoTime();
+		// the slaves would otherwise wait for the master's departure to be detected
+		for (ActorSystem system : systems)
+			Await.ready(system.terminate(), Duration.Inf());
+
+		if (startTime.get() == 0)
+			throw new IllegalStateException("The master terminated before its node was up, so the benchmark measured nothing");
+		double seconds = (endTime - startTime.get()) / 1e9;
+
+		Set<String> results = new HashSet<>(Files.readAllLines(directory.resolve("results.csv"), StandardCharsets.UTF_8));
+		int cracked = 0;
+		for (String plaintext : plaintexts)
+			if (results.contains(plaintext))
+				cracked++;
+
+		long hashes = 0;
+		System.out.printf("Cracked %d of %d passwords in %.3f s: %.1f passwords per second\n", cracked, command.getRecords(), seconds, command.getRecords() / seconds);
+		for (int i = 0; i < systems.size(); i++) {
+			long nodeHashes = statistics.get(i).hashes();
+			hashes += nodeHashes;
+			System.out.printf("  %-8s %,15d hashes, %,15.0f hashes per second\n", names.get(i), nodeHashes, nodeHashes / seconds);
+		}
+		System.out.printf("  %-8s %,15d hashes, %,15.0f hashes per second\n", "total", hashes, hashes / seconds);
+	}
+}
@@ -1,12 +1,21 @@
 package de.hpi.ddm;
 
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
 
+import de.hpi.ddm.configuration.CommandBenchmark;
+import de.hpi.ddm.configuration.CommandGenerate;
 import de.hpi.ddm.configuration.CommandMaster;
+import de.hpi.ddm.configuration.CommandPrecompute;
 import de.hpi.ddm.configuration.CommandSlave;
 import de.hpi.ddm.configuration.ConfigurationSingleton;
 import de.hpi.ddm.configuration.DatasetDescriptorSingleton;
+import de.hpi.ddm.structures.DatasetGenerator;
+import de.hpi.ddm.structures.PermutationTable;
 
 public class Main {
 
@@ -14,9 +23,15 @@ public class Main {
 		
 		CommandMaster commandMaster = new CommandMaster();
         CommandSlave commandSlave = new CommandSlave();
+        CommandPrecompute commandPrecompute = new CommandPrecompute();
+        CommandBenchmark commandBenchmark = new CommandBenchmark();
+        CommandGenerate commandGenerate = new CommandGenerate();
         JCommander jCommander = JCommander.newBuilder()
         	.addCommand(MasterSystem.MASTER_ROLE, commandMaster)
             .addCommand(SlaveSystem.SLAVE_ROLE, commandSlave)
+            .addCommand(CommandPrecompute.NAME, commandPrecompute)
+            .addCommand(CommandBenchmark.NAME, commandBenchmark)
+            .addCommand(CommandGenerate.NAME, commandGenerate)
             .build();
         
         try {
@@ -38,6 +53,26 @@ public class Main {
                 	
                 	SlaveSystem.start();
                     break;
+                case CommandPrecompute.NAME:
+                	ConfigurationSingleton.get().update(commandPrecompute);
+                	
+                	long entries = PermutationTable.build(Paths.get(ConfigurationSingleton.get().getPermutationTables()), commandPrecompute.getAlphabet());
+                	System.out.printf("Precomputed %d hint digests of %s\n", entries, commandPrecompute.getAlphabet());
+                    break;
+                case CommandBenchmark.NAME:
+                	ConfigurationSingleton.get().update(commandBenchmark);
+                	
+                	ClusterBenchmark.run(commandBenchmark);
+                    break;
+                case CommandGenerate.NAME:
+                	DatasetGenerator generator = new DatasetGenerator(commandGenerate.getAlphabet(), commandGenerate.getPasswordLength(), commandGenerate.getNumHints(), commandGenerate.getSeed());
+                	
+                	try (BufferedWriter dataset = Files.newBufferedWriter(Paths.get(commandGenerate.getOutput()));
+                			BufferedWriter solutions = (commandGenerate.getSolutions() == null) ? null : Files.newBufferedWriter(Paths.get(commandGenerate.getSolutions()))) {
+                		generator.write(dataset, solutions, commandGenerate.getRecords());
+                	}
+                	System.out.printf("Generated %d passwords over %s into %s\n", commandGenerate.getRecords(), commandGenerate.getAlphabet(), commandGenerate.getOutput());
+                    break;
                 default:
                     throw new AssertionError();
             }
@@ -1,5 +1,7 @@
 package de.hpi.ddm;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 
@@ -16,6 +18,7 @@ import de.hpi.ddm.actors.Reaper;
 import de.hpi.ddm.actors.Worker;
 import de.hpi.ddm.configuration.Configuration;
 import de.hpi.ddm.configuration.ConfigurationSingleton;
+import de.hpi.ddm.structures.SolutionCache;
 import scala.concurrent.Await;
 import scala.concurrent.duration.Duration;
 
@@ -23,7 +26,7 @@ public class MasterSystem {
 	
 	public static final String MASTER_ROLE = "master";
 
-	public static void start() {
+	public static ActorSystem start() throws IOException {
 		final Configuration c = ConfigurationSingleton.get();
 		
 		final Config config = ConfigFactory.parseString(
@@ -44,7 +47,19 @@ public class MasterSystem {
 		
 		ActorRef collector = system.actorOf(Collector.props(), Collector.DEFAULT_NAME);
 		
-		ActorRef master = system.actorOf(Master.props(reader, collector), Master.DEFAULT_NAME);
+		final SolutionCache solutionCache = (c.getSolutionCache() == null) ? null : SolutionCache.open(Paths.get(c.getSolutionCache()));
+		if (solutionCache != null) {
+			system.log().info("Loaded {} cached solutions from {}", solutionCache.size(), c.getSolutionCache());
+			system.registerOnTermination(() -> {
+				try {
+					solutionCache.close();
+				} catch (IOException e) {
+					system.log().error(e, "Could not write the solution cache");
+				}
+			});
+		}
+		
+		ActorRef master = system.actorOf(Master.props(reader, collector, solutionCache), Master.DEFAULT_NAME);
 		
 		Cluster.get(system).registerOnMemberUp(new Runnable() {
 			@Override
@@ -83,5 +98,7 @@ public class MasterSystem {
 			
 			system.actorSelection("/user/" + Master.DEFAULT_NAME).tell(new Master.StartMessage(), ActorRef.noSender());
 		}
+		
+		return system;
 	}
 }
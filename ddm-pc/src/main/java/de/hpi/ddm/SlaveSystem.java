@@ -19,7 +19,7 @@ public class SlaveSystem {
 
 	public static final String SLAVE_ROLE = "slave";
 	
-	public static void start() {
+	public static ActorSystem start() {
 		final Configuration c = ConfigurationSingleton.get();
 		
 		final Config config = ConfigFactory.parseString(
@@ -61,5 +61,7 @@ public class SlaveSystem {
 				}.start();
 			}
 		});
+		
+		return system;
 	}
 }
@@ -1,11 +1,15 @@
 package de.hpi.ddm.actors;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.Props;
+import de.hpi.ddm.configuration.ConfigurationSingleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,6 +22,8 @@ public class Collector extends AbstractLoggingActor {
 	
 	public static final String DEFAULT_NAME = "collector";
 
+	private static final int FLUSH_INTERVAL = 1000;	// results between two flushes of the output file
+
 	public static Props props() {
 		return Props.create(Collector.class);
 	}
@@ -36,20 +42,33 @@ public class Collector extends AbstractLoggingActor {
 	public static class PrintMessage implements Serializable {
 		private static final long serialVersionUID = -267778464637901383L;
 	}
+
 	
 	/////////////////
 	// Actor State //
 	/////////////////
 	
-	private List<String> results = new ArrayList<>();
+	private final String outputFile = ConfigurationSingleton.get().getOutputFile();
+	private BufferedWriter output;	// null if the results are logged
+	private long collected = 0;
+	private long firstResultTime;
 	
 	/////////////////////
 	// Actor Lifecycle //
 	/////////////////////
 
 	@Override
-	public void preStart() {
+	public void preStart() throws IOException {
 		Reaper.watchWithDefaultReaper(this);
+
+		if (this.outputFile != null)
+			this.output = Files.newBufferedWriter(Paths.get(this.outputFile), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void postStop() throws IOException {
+		if (this.output != null)
+			this.output.close();
 	}
 
 	////////////////////
@@ -65,11 +84,28 @@ public class Collector extends AbstractLoggingActor {
 				.build();
 	}
 
-	protected void handle(CollectMessage message) {
-		this.results.add(message.getResult());
+	protected void handle(CollectMessage message) throws IOException {
+		if (this.collected++ == 0)
+			this.firstResultTime = System.currentTimeMillis();
+
+		// results are streamed out as they arrive instead of being kept until the end
+		if (this.output == null) {
+			this.log().info("{}", message.getResult());
+			return;
+		}
+
+		this.output.write(message.getResult());
+		this.output.newLine();
+		if (this.collected % FLUSH_INTERVAL == 0)
+			this.output.flush();
 	}
 	
-	protected void handle(PrintMessage message) {
-		this.results.forEach(result -> this.log().info("{}", result));
+	protected void handle(PrintMessage message) throws IOException {
+		if (this.output != null)
+			this.output.flush();
+
+		long elapsed = (this.collected == 0) ? 0 : System.currentTimeMillis() - this.firstResultTime;
+		double resultsPerSecond = (elapsed == 0) ? this.collected : 1000.0 * this.collected / elapsed;
+		this.log().info("Collected {} results ({} per second)", this.collected, String.format("%.1f", resultsPerSecond));
 	}
 }
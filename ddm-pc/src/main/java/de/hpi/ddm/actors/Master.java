@@ -1,16 +1,36 @@
 package de.hpi.ddm.actors;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.ActorRef;
+import akka.actor.Address;
+import akka.actor.Cancellable;
 import akka.actor.PoisonPill;
 import akka.actor.Props;
 import akka.actor.Terminated;
+import de.hpi.ddm.configuration.ConfigurationSingleton;
+import de.hpi.ddm.structures.DigestIndex;
+import de.hpi.ddm.structures.MasterMetrics;
+import de.hpi.ddm.structures.PermutationTable;
+import de.hpi.ddm.structures.Permutations;
+import de.hpi.ddm.structures.Sha256Engine;
+import de.hpi.ddm.structures.SolutionCache;
+import de.hpi.ddm.structures.WorkScheduler;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
 public class Master extends AbstractLoggingActor {
 
@@ -20,19 +40,23 @@ public class Master extends AbstractLoggingActor {
 	
 	public static final String DEFAULT_NAME = "master";
 
-	private final Queue<Worker.HintsMessage> unassignedWork = new LinkedList<>();
-	private final Queue<Worker.PasswordMessage> unassignedPasswordWork = new LinkedList<>();
-	private final Queue<ActorRef> idleWorkers = new LinkedList<>();
-	private final Map<ActorRef, Worker.HintsMessage> busyWorkers = new HashMap<>();
-	private final Map<ActorRef, Worker.PasswordMessage> busyPasswordWorkers = new HashMap<>();
+	// hints reduce the chars of passwords, so hint work is always dispatched before password work
+	private static final int HINT_PRIORITY = 0;
+	private static final int PASSWORD_PRIORITY = 1;
+
+	// how often the master looks for stragglers if no completion triggers a dispatch
+	private static final FiniteDuration SPECULATION_INTERVAL = Duration.create(1, TimeUnit.SECONDS);
 
-	public static Props props(final ActorRef reader, final ActorRef collector) {
-		return Props.create(Master.class, () -> new Master(reader, collector));
+	public static final String METRICS_NAME = "de.hpi.ddm:type=MasterMetrics";
+
+	public static Props props(final ActorRef reader, final ActorRef collector, final SolutionCache solutionCache) {
+		return Props.create(Master.class, () -> new Master(reader, collector, solutionCache));
 	}
 
-	public Master(final ActorRef reader, final ActorRef collector) {
+	public Master(final ActorRef reader, final ActorRef collector, final SolutionCache solutionCache) {
 		this.reader = reader;
 		this.collector = collector;
+		this.solutionCache = solutionCache;
 		this.workers = new ArrayList<>();
 	}
 
@@ -51,28 +75,67 @@ public class Master extends AbstractLoggingActor {
 		private List<String[]> lines;
 	}
 
-	@Data
+	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class RegistrationMessage implements Serializable {
 		private static final long serialVersionUID = 3303081601659723997L;
+		private int workWindow;	// the number of tasks that the worker wants to have outstanding
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class PasswordCompletedMessage implements Serializable {
 		private static final long serialVersionUID = -102767440935270949L;
+		private long taskId;
+		private long hashes;	// the number of candidates that the worker hashed
+		private long nanos;		// the time that the worker took
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class PasswordCrackedMessage implements Serializable {
+		private static final long serialVersionUID = 6291726519383760931L;
+		private int passwordIndex;
 		private String result;
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class HintsCompletedMessage implements Serializable {
 		private static final long serialVersionUID = 1670208454683295451L;
+		private long taskId;
+		private int batchId;
 		private char missingChar;
+		private long hashes;	// the number of permutations that the worker hashed
+		private long nanos;		// the time that the worker took
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class HintsFailedMessage implements Serializable {
+		private static final long serialVersionUID = -5218384725017423306L;
+		private long taskId;
+		private int batchId;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class HintIndexRequestMessage implements Serializable {
+		private static final long serialVersionUID = -7373232637614290826L;
+		private int batchId;
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class PasswordCharMessage implements Serializable {
 		private static final long serialVersionUID = 3854781765800714665L;
+		private int batchId;
 		private int passwordIndex;
 		private char missingChar;
+		private String hint;	// the decrypted hint
+	}
+
+	@Data
+	public static class SpeculationMessage implements Serializable {
+		private static final long serialVersionUID = 4786211392480146113L;
+	}
+
+	@Data
+	public static class MetricsMessage implements Serializable {
+		private static final long serialVersionUID = -3962209532453390578L;
 	}
 	
 	/////////////////
@@ -82,12 +145,43 @@ public class Master extends AbstractLoggingActor {
 	private final ActorRef reader;
 	private final ActorRef collector;
 	private final List<ActorRef> workers;
+	private final SolutionCache solutionCache;	// null if no solutions are persisted
+
+	private final long hintChunkSize = ConfigurationSingleton.get().getHintChunkSize();
+	private final int passwordGroupSize = ConfigurationSingleton.get().getPasswordGroupSize();
+	private final String permutationTableDirectory = ConfigurationSingleton.get().getPermutationTables();
+	private final WorkScheduler<ActorRef, Object> scheduler = new WorkScheduler<>(2, ConfigurationSingleton.get().getSpeculationFactor());
+	private Cancellable speculationTimer;
+	private final MasterMetrics metrics = new MasterMetrics();
+	private final int metricsInterval = ConfigurationSingleton.get().getMetricsInterval();
+	private Cancellable metricsTimer;
+	private ObjectName metricsName;	// null if the metrics are not registered with JMX
 
 	private long startTime;
-	private int passwordLength;
+	private ArrayList<Integer> passwordLengths = new ArrayList<>();
 	private ArrayList<String> passwordChars = new ArrayList<>();
 	private ArrayList<String> passwords = new ArrayList<>();
-	private boolean passwordDecryptionStarted = false;
+	private ArrayList<PasswordState> passwordStates = new ArrayList<>();
+	private ArrayList<Integer> unresolvedPasswordHints = new ArrayList<>();				// the number of hints per password whose missing char is still unknown
+	private final Map<String, List<Integer>> resolvedPasswords = new LinkedHashMap<>();	// the resolved passwords that wait for a password job, grouped by chars and length
+	private boolean readingFinished = false;
+	private boolean finished = false;
+
+	private int nextBatchId = 0;
+	private final List<Integer> batchOffsets = new ArrayList<>();					// the index of the first password of every batch
+	private final List<Long> batchStartTimes = new ArrayList<>();					// the arrival time of every batch in nanoseconds
+	private final List<Integer> uncrackedPasswords = new ArrayList<>();				// the number of passwords per batch that are not cracked yet
+	private final Map<Integer, DigestIndex> hintIndexes = new HashMap<>();			// the hint indexes of all batches with pending hint work
+	private final Map<Integer, Integer> pendingHintWork = new HashMap<>();			// the number of unfinished hint messages per batch
+	private final Map<Integer, Integer> unresolvedHints = new HashMap<>();			// the number of hints per batch whose missing char is still unknown
+	private final Map<Address, Set<Integer>> deliveredHintIndexes = new HashMap<>();	// the batches whose hint index each node has cached
+	private final Map<String, PermutationTable> permutationTables = new HashMap<>();	// the opened tables by alphabet; null if an alphabet has no table
+
+	private enum PasswordState {
+		HINTS_PENDING,	// some of the password's hints are still searched
+		HINTS_RESOLVED,	// the password's chars are final, so it can be brute-forced
+		CRACKED
+	}
 
 	/////////////////////
 	// Actor Lifecycle //
@@ -96,6 +190,30 @@ public class Master extends AbstractLoggingActor {
 	@Override
 	public void preStart() {
 		Reaper.watchWithDefaultReaper(this);
+
+		try {
+			this.metricsName = new ObjectName(METRICS_NAME);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this.metrics, this.metricsName);
+		} catch (JMException e) {
+			this.log().warning("Could not register the metrics with JMX: {}", e.getMessage());
+			this.metricsName = null;
+		}
+	}
+
+	@Override
+	public void postStop() {
+		if (this.speculationTimer != null)
+			this.speculationTimer.cancel();
+		if (this.metricsTimer != null)
+			this.metricsTimer.cancel();
+
+		if (this.metricsName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.metricsName);
+			} catch (JMException e) {
+				this.log().warning("Could not unregister the metrics from JMX: {}", e.getMessage());
+			}
+		}
 	}
 
 	////////////////////
@@ -110,132 +228,357 @@ public class Master extends AbstractLoggingActor {
 				.match(Terminated.class, this::handle)
 				.match(RegistrationMessage.class, this::handle)
 				.match(PasswordCompletedMessage.class, this::handle)
+				.match(PasswordCrackedMessage.class, this::handle)
 				.match(HintsCompletedMessage.class, this::handle)
+				.match(HintsFailedMessage.class, this::handle)
 				.match(PasswordCharMessage.class, this::handle)
+				.match(HintIndexRequestMessage.class, this::handle)
+				.match(SpeculationMessage.class, this::handle)
+				.match(MetricsMessage.class, this::handle)
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
 				.build();
 	}
 
 	protected void handle(StartMessage message) {
 		this.startTime = System.currentTimeMillis();
+		// the time that a paused start waited for its console input must not dilute the hash rate
+		this.metrics.start();
 		
 		this.reader.tell(new Reader.ReadMessage(), this.self());
+
+		this.speculationTimer = this.context().system().scheduler().schedule(SPECULATION_INTERVAL, SPECULATION_INTERVAL,
+				this.self(), new SpeculationMessage(), this.context().dispatcher(), ActorRef.noSender());
+
+		if (this.metricsInterval > 0) {
+			FiniteDuration interval = Duration.create(this.metricsInterval, TimeUnit.SECONDS);
+			this.metricsTimer = this.context().system().scheduler().schedule(interval, interval,
+					this.self(), new MetricsMessage(), this.context().dispatcher(), ActorRef.noSender());
+		}
 	}
 
-	protected void handle(PasswordCompletedMessage message) {
+	protected void handle(SpeculationMessage message) {
+		this.dispatch();
+	}
 
-		this.collector.tell(new Collector.CollectMessage(message.getResult()), this.self());
+	protected void handle(MetricsMessage message) {
+		this.log().info("Metrics: {}", this.metrics.summary());
+	}
 
-		this.busyPasswordWorkers.remove(this.sender());
+	protected void handle(PasswordCrackedMessage message) {
+		// remove 1 of index because IDs start at 1 instead of 0
+		int index = message.getPasswordIndex() - 1;
 
-		if (!this.unassignedPasswordWork.isEmpty()) {
-			this.sender().tell(unassignedPasswordWork.element(), this.self());
-			this.busyPasswordWorkers.put(this.sender(), unassignedPasswordWork.remove());
-		}
-		else  {
-			this.idleWorkers.add(this.sender());
-			if(busyPasswordWorkers.isEmpty() && busyWorkers.isEmpty()) {
-				this.collector.tell(new Collector.PrintMessage(), this.self());
-				this.terminate();
-			}
+		// speculative copies of password work may crack a password twice
+		if (this.passwordStates.get(index) == PasswordState.CRACKED)
+			return;
+
+		this.passwordStates.set(index, PasswordState.CRACKED);
+		this.collect(message.getResult());
+		this.cacheSolution(Sha256Engine.fromHex(this.passwords.get(index)), message.getResult());
+		this.countCracked(index);
+	}
+
+	private void collect(String result) {
+		// the collector only writes the results, so the master keeps their count and rate with its other metrics
+		this.collector.tell(new Collector.CollectMessage(result), this.self());
+		this.metrics.recordResult();
+	}
+
+	private void countCracked(int index) {
+		// the batches' offsets are ascending, so the batch of a password is the last one that starts at or before it
+		int position = Collections.binarySearch(this.batchOffsets, index);
+		int batchId = (position >= 0) ? position : -position - 2;
+
+		int uncracked = this.uncrackedPasswords.get(batchId) - 1;
+		this.uncrackedPasswords.set(batchId, uncracked);
+		if (uncracked == 0)
+			this.metrics.recordBatch(System.nanoTime() - this.batchStartTimes.get(batchId));
+	}
+
+	private void cacheHint(String hint) {
+		byte[] bytes = Sha256Engine.toBytes(hint);
+		this.cacheSolution(Sha256Engine.get().hash(bytes, bytes.length), hint);
+	}
+
+	private String cachedSolution(String hexDigest) {
+		return (this.solutionCache == null) ? null : this.solutionCache.get(Sha256Engine.fromHex(hexDigest));
+	}
+
+	private void cacheSolution(byte[] digest, String plaintext) {
+		if (this.solutionCache == null)
+			return;
+
+		try {
+			this.solutionCache.put(digest, plaintext);
+		} catch (IOException e) {
+			this.log().error(e, "Could not cache the solution {}", plaintext);
 		}
 	}
 
-	private void terminationWhenPasswordsAreFasterThanHint() {
-		this.collector.tell(new Collector.PrintMessage(), this.self());
-		this.terminate();
+	protected void handle(PasswordCompletedMessage message) {
+		this.metrics.recordPasswords(this.sender().path().toString(), message.getHashes(), message.getNanos());
+		this.scheduler.complete(this.sender(), message.getTaskId());
+		this.dispatch();
 	}
 
 	protected void handle(HintsCompletedMessage message) {
-		this.busyWorkers.remove(this.sender());
+		this.metrics.recordHints(this.sender().path().toString(), message.getHashes(), message.getNanos());
+
+		// only the first completion of a task counts; speculative copies just free their worker
+		if (this.scheduler.complete(this.sender(), message.getTaskId()))
+			this.completeHintWork(message.getBatchId());
+
+		this.dispatch();
+	}
 
-		if (this.unassignedWork.size() != 0) {
-			this.sender().tell(unassignedWork.element(), this.self());
-			this.busyWorkers.put(this.sender(), unassignedWork.remove());
+	protected void handle(HintsFailedMessage message) {
+		// the range was not searched completely, so it is queued again instead of being completed
+		if (this.scheduler.fail(this.sender(), message.getTaskId()))
+			this.log().warning("Queued hint task {} of batch {} again after it failed on {}", message.getTaskId(), message.getBatchId(), this.sender());
+
+		this.dispatch();
+	}
+
+	private void dispatch() {
+		// full password groups are released right away; smaller ones only if the workers would idle otherwise
+		// or if no more passwords can join them because all hint work is done
+		boolean hintsDone = this.readingFinished && (this.scheduler.pending(HINT_PRIORITY) == 0);
+		this.createPasswordWork(hintsDone || (this.scheduler.queued() < this.scheduler.freeSlots()));
+
+		this.scheduler.dispatch(this::send);
+		this.metrics.updateScheduler(this.scheduler.queued(HINT_PRIORITY), this.scheduler.queued(PASSWORD_PRIORITY),
+				this.scheduler.busyWorkers(), this.scheduler.idleWorkers());
+
+		if (hintsDone && !this.finished && this.resolvedPasswords.isEmpty() && this.scheduler.isIdle()) {
+			this.finished = true;
+			this.collector.tell(new Collector.PrintMessage(), this.self());
+			this.terminate();
 		}
-		else  {
-			if(!this.unassignedPasswordWork.isEmpty()) {
-				this.sender().tell(unassignedPasswordWork.element(), this.self());
-				this.busyPasswordWorkers.put(this.sender(), unassignedPasswordWork.remove());
-			}
-			else if (!this.passwordDecryptionStarted) {
-				this.passwordDecryptionStarted = true;
-				for (int i = 0; i < passwordChars.size(); i++) {
-					Worker.PasswordMessage msg = new Worker.PasswordMessage();
-					msg.setPasswordLength(this.passwordLength);
-					msg.setPasswordChars(this.passwordChars.get(i));
-					msg.setPassword(this.passwords.get(i));
-					this.unassignedPasswordWork.add(msg);
-				}
-				this.sender().tell(unassignedPasswordWork.element(), this.self());
-				this.busyPasswordWorkers.put(this.sender(), unassignedPasswordWork.remove());
-			}
-			else {
-				this.idleWorkers.add(this.sender());
-				this.terminationWhenPasswordsAreFasterThanHint();
+	}
+
+	private void resolve(int index) {
+		if (this.passwordStates.get(index) != PasswordState.HINTS_PENDING)
+			return;
+
+		this.passwordStates.set(index, PasswordState.HINTS_RESOLVED);
+		this.resolvedPasswords.computeIfAbsent(this.passwordChars.get(index) + ";" + this.passwordLengths.get(index), key -> new ArrayList<>()).add(index);
+	}
+
+	private void createPasswordWork(boolean partialGroups) {
+		// passwords with the same remaining chars and length share one candidate space, so
+		// they are grouped into jobs that enumerate the space once for all of their targets
+		Iterator<List<Integer>> groups = this.resolvedPasswords.values().iterator();
+		while (groups.hasNext()) {
+			List<Integer> group = groups.next();
+			while ((group.size() >= this.passwordGroupSize) || (partialGroups && !group.isEmpty())) {
+				List<Integer> job = group.subList(0, Math.min(this.passwordGroupSize, group.size()));
+
+				DigestIndex.Builder targets = DigestIndex.builder();
+				for (int index : job)
+					targets.add(this.passwords.get(index), index + 1);	// IDs start at 1
+
+				Worker.PasswordMessage msg = new Worker.PasswordMessage();
+				msg.setPasswordLength(this.passwordLengths.get(job.get(0)));
+				msg.setPasswordChars(this.passwordChars.get(job.get(0)));
+				msg.setPasswords(targets.build());
+				msg.setTaskId(this.scheduler.submit(msg, PASSWORD_PRIORITY));
+				job.clear();
 			}
+			if (group.isEmpty())
+				groups.remove();
 		}
 	}
 
+	private void completeHintWork(int batchId) {
+		int pending = this.pendingHintWork.merge(batchId, -1, Integer::sum);
+		if (pending == 0) {
+			this.pendingHintWork.remove(batchId);
+			this.unresolvedHints.remove(batchId);
+			this.hintIndexes.remove(batchId);
+			this.deliveredHintIndexes.values().forEach(batchIds -> batchIds.remove(batchId));
+
+			// hints that were not found cannot reduce their passwords' chars anymore
+			int end = (batchId + 1 < this.batchOffsets.size()) ? this.batchOffsets.get(batchId + 1) : this.passwords.size();
+			for (int index = this.batchOffsets.get(batchId); index < end; index++)
+				this.resolve(index);
+		}
+	}
+
+	protected void handle(HintIndexRequestMessage message) {
+		this.sender().tell(new Worker.HintIndexMessage(message.getBatchId(), this.hintIndexes.get(message.getBatchId())), this.self());
+	}
+
 	protected void handle (PasswordCharMessage message) {
 		// remove 1 of index because IDs start at 1 instead of 0
 		int index = message.getPasswordIndex() - 1;
-		this.passwordChars.set(index, this.passwordChars.get(index).replace(String.valueOf(message.getMissingChar()), ""));
+		String chars = this.passwordChars.get(index);
+		String reducedChars = chars.replace(String.valueOf(message.getMissingChar()), "");
+
+		// count every hint only once, even if it is reported again
+		if (reducedChars.length() == chars.length() || (this.passwordStates.get(index) != PasswordState.HINTS_PENDING))
+			return;
+
+		this.passwordChars.set(index, reducedChars);
+		this.cacheHint(message.getHint());
+
+		// the password can be brute-forced as soon as all of its own hints are resolved
+		int unresolved = this.unresolvedPasswordHints.get(index) - 1;
+		this.unresolvedPasswordHints.set(index, unresolved);
+		if (unresolved == 0)
+			this.resolve(index);
+
+		if (this.unresolvedHints.containsKey(message.getBatchId()) && (this.unresolvedHints.merge(message.getBatchId(), -1, Integer::sum) == 0))
+			this.finishHints(message.getBatchId());
+
+		if (unresolved == 0)
+			this.dispatch();
+	}
+
+	private void finishHints(int batchId) {
+		// all hints of the batch are resolved, so its remaining hint work is obsolete
+		List<Object> cancelled = this.scheduler.cancel(work -> (work instanceof Worker.HintsMessage) && (((Worker.HintsMessage) work).getBatchId() == batchId));
+		for (int i = 0; i < cancelled.size(); i++)
+			this.completeHintWork(batchId);
+
+		for (ActorRef worker : this.workers)
+			worker.tell(new Worker.HintsDoneMessage(batchId), this.self());
 	}
 
 	protected void handle(BatchMessage message) throws InterruptedException {
 
 		if (message.getLines().isEmpty()) {
-			this.collector.tell(new Collector.PrintMessage(), this.self());
+			this.readingFinished = true;
+			this.dispatch();
 			return;
 		}
 
-		this.passwordLength = Integer.parseInt(message.lines.get(0)[3]);
-		HashMap<String, LinkedList<Integer>> hintMap = new HashMap<>();
+		// workers that idle before the batch's work is dispatched waited for the batch
+		int idleWorkers = this.scheduler.idleWorkers();
+
+		DigestIndex.Builder hintIndex = DigestIndex.builder();
+		this.batchOffsets.add(this.passwords.size());
+		this.batchStartTimes.add(System.nanoTime());
+		this.uncrackedPasswords.add(message.getLines().size());
 
 		for (String[] line : message.getLines()) {
 
 			this.passwordChars.add(line[2]);
+			this.passwordLengths.add(Integer.parseInt(line[3]));
 			this.passwords.add(line[4]);
+			this.passwordStates.add(PasswordState.HINTS_PENDING);
+			this.unresolvedPasswordHints.add(0);
+			int index = this.passwords.size() - 1;
+
+			// passwords and hints that were cracked in earlier runs are not searched again
+			String password = this.cachedSolution(line[4]);
+			if (password != null) {
+				this.passwordStates.set(index, PasswordState.CRACKED);
+				this.collect(password);
+				this.countCracked(index);
+				continue;
+			}
 
-			String[] hints = Arrays.copyOfRange(line, 5, line.length);
-
-			for (String hint : hints) {
-				if (hintMap.containsKey(hint)) {
-					LinkedList<Integer> values = hintMap.get(hint);
-					values.add(Integer.parseInt(line[0]));
-					hintMap.put(hint, values);
-				} else {
-					LinkedList<Integer> values = new LinkedList<Integer>();
-					values.add(Integer.parseInt(line[0]));
-					hintMap.put(hint, values);
+			int id = Integer.parseInt(line[0]);
+			for (int i = 5; i < line.length; i++) {
+				String hint = this.cachedSolution(line[i]);
+				if (hint == null) {
+					hintIndex.add(line[i], id);
+					this.unresolvedPasswordHints.set(index, this.unresolvedPasswordHints.get(index) + 1);
+					continue;
 				}
+
+				this.applyHint(index, hint);
+			}
+
+			if (this.unresolvedPasswordHints.get(index) == 0)
+				this.resolve(index);
+		}
+
+		int batchId = this.nextBatchId++;
+		DigestIndex hints = hintIndex.build();
+		PermutationTable table = this.permutationTable(message.getLines().get(0)[2]);
+
+		if (table != null) {
+			// the table holds all hints over the alphabet, so joining it with the batch's hints resolves all of them
+			table.join(hints, (id, permutation) -> {
+				String hint = new String(permutation, StandardCharsets.US_ASCII);
+				this.applyHint(id - 1, hint);
+				this.cacheHint(hint);
+			});
+			for (int index = this.batchOffsets.get(batchId); index < this.passwords.size(); index++)
+				this.resolve(index);
+		}
+		// the batch needs no hint work if all of its hints are cached
+		else if (hints.numIds() > 0) {
+			this.createHintWork(batchId, hints, message.getLines().get(0)[2]);
+		}
+		this.dispatch();
+
+		this.log().info("Processed batch of size {}", message.getLines().size());
+		this.reader.tell(new Reader.ReadMessage(idleWorkers), this.self());
+	}
+
+	private void applyHint(int index, String hint) {
+		// a hint contains all chars of its password's alphabet but one, which the password does not contain
+		String chars = this.passwordChars.get(index);
+		for (char c : chars.toCharArray())
+			if (hint.indexOf(c) < 0)
+				chars = chars.replace(String.valueOf(c), "");
+		this.passwordChars.set(index, chars);
+	}
+
+	private PermutationTable permutationTable(String alphabet) {
+		if (this.permutationTableDirectory == null)
+			return null;
+
+		if (!this.permutationTables.containsKey(alphabet)) {
+			try {
+				this.permutationTables.put(alphabet, PermutationTable.open(Paths.get(this.permutationTableDirectory), alphabet));
+			} catch (IOException e) {
+				this.log().error(e, "Could not open the permutation table of {}", alphabet);
+				this.permutationTables.put(alphabet, null);
 			}
 		}
+		return this.permutationTables.get(alphabet);
+	}
 
-		String passwordChars = message.getLines().get(0)[2];
+	private void createHintWork(int batchId, DigestIndex hints, String passwordChars) {
+		this.hintIndexes.put(batchId, hints);
+		this.unresolvedHints.put(batchId, hints.numIds());
 
 		//we know that the password length is passwordChars.size()-1
 		//we generate possible sequences when removing one char from the possible passwordChars
+		//and cut the permutations of each sequence into evenly sized ranges of lexicographic ranks
+		long permutations = Permutations.factorial(passwordChars.length() - 1);
+		long chunks = Math.max(1, (permutations + this.hintChunkSize - 1) / this.hintChunkSize);
+		long chunkSize = (permutations + chunks - 1) / chunks;
+
 		for (char c : passwordChars.toCharArray()) {
 			String sequence = passwordChars.replace(Character.toString(c), "");
 
-			Worker.HintsMessage seqMsg = new Worker.HintsMessage();
-			seqMsg.setSequence(sequence);
-			seqMsg.setMissingChar(c);
-			seqMsg.setHints(hintMap);
-
-			if(this.idleWorkers.size() != 0){
-				this.idleWorkers.element().tell(seqMsg, this.self());
-				this.busyWorkers.put(this.idleWorkers.remove(), seqMsg);
-			}
-			else {
-				this.unassignedWork.add(seqMsg);
+			for (long from = 0; from < permutations; from += chunkSize) {
+				Worker.HintsMessage seqMsg = new Worker.HintsMessage();
+				seqMsg.setBatchId(batchId);
+				seqMsg.setSequence(sequence);
+				seqMsg.setMissingChar(c);
+				seqMsg.setFrom(from);
+				seqMsg.setTo(Math.min(from + chunkSize, permutations));
+				seqMsg.setTaskId(this.scheduler.submit(seqMsg, HINT_PRIORITY));
+				this.pendingHintWork.merge(batchId, 1, Integer::sum);
 			}
 		}
+	}
+
+	private void send(ActorRef worker, Object work) {
+		// broadcast the batch's hint index only once per node; all workers of that node share it
+		if (work instanceof Worker.HintsMessage) {
+			int batchId = ((Worker.HintsMessage) work).getBatchId();
+			Set<Integer> delivered = this.deliveredHintIndexes.computeIfAbsent(worker.path().address(), address -> new HashSet<>());
+			if (this.hintIndexes.containsKey(batchId) && delivered.add(batchId))
+				worker.tell(new Worker.HintIndexMessage(batchId, this.hintIndexes.get(batchId)), this.self());
+		}
 
-		this.collector.tell(new Collector.CollectMessage("Processed batch of size " + message.getLines().size()), this.self());
-		this.reader.tell(new Reader.ReadMessage(), this.self());
+		worker.tell(work, this.self());
 	}
 	
 	protected void terminate() {
@@ -251,13 +594,15 @@ public class Master extends AbstractLoggingActor {
 		
 		long executionTime = System.currentTimeMillis() - this.startTime;
 		this.log().info("Algorithm finished in {} ms", executionTime);
+		this.log().info("Metrics: {}", this.metrics.summary());
 	}
 
 	protected void handle(RegistrationMessage message) {
 		this.context().watch(this.sender());
 		this.workers.add(this.sender());
 
-		idleWorkers.add(this.sender());
+		this.scheduler.register(this.sender(), message.getWorkWindow());
+		this.dispatch();
 
 		// this.log().info("Registered {}", this.sender());
 	}
@@ -266,22 +611,9 @@ public class Master extends AbstractLoggingActor {
 		this.context().unwatch(message.getActor());
 		this.workers.remove(message.getActor());
 
-		if(this.busyWorkers.containsKey(message.getActor())) {
-			this.unassignedWork.add(this.busyWorkers.get(message.getActor()));
-			this.busyWorkers.remove(message.getActor());
-			if(!idleWorkers.isEmpty()) {
-				this.idleWorkers.element().tell(unassignedWork.element(), this.self());
-				this.busyWorkers.put(this.idleWorkers.remove(), unassignedWork.remove());
-			}
-		}
-		if(this.busyPasswordWorkers.containsKey(message.getActor())) {
-			this.unassignedPasswordWork.add(this.busyPasswordWorkers.get(message.getActor()));
-			this.busyPasswordWorkers.remove(message.getActor());
-			if(!idleWorkers.isEmpty()) {
-				this.idleWorkers.element().tell(unassignedPasswordWork.element(), this.self());
-				this.busyPasswordWorkers.put(this.idleWorkers.element(), unassignedPasswordWork.remove());
-			}
-		}
+		// the outstanding tasks of the worker are handed to the others
+		this.scheduler.unregister(message.getActor());
+		this.dispatch();
 
 //		this.log().info("Unregistered {}", message.getActor());
 	}
@@ -3,23 +3,43 @@ package de.hpi.ddm.actors;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-
-import com.opencsv.CSVReader;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import akka.actor.AbstractLoggingActor;
+import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.event.LoggingAdapter;
+import akka.pattern.Patterns;
+import akka.stream.ActorAttributes;
+import akka.stream.ActorMaterializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.SinkQueueWithCancel;
+import akka.stream.javadsl.Source;
+import de.hpi.ddm.configuration.Configuration;
 import de.hpi.ddm.configuration.ConfigurationSingleton;
+import de.hpi.ddm.configuration.DatasetDescriptor;
 import de.hpi.ddm.configuration.DatasetDescriptorSingleton;
+import de.hpi.ddm.configuration.RecordReader;
+import de.hpi.ddm.structures.BatchSizeController;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 public class Reader extends AbstractLoggingActor {
 
 	////////////////////////
 	// Actor Construction //
 	////////////////////////
-	
+
 	public static final String DEFAULT_NAME = "reader";
 
+	public static final String BLOCKING_IO_DISPATCHER = "akka.stream.default-blocking-io-dispatcher";
+
 	public static Props props() {
 		return Props.create(Reader.class);
 	}
@@ -28,21 +48,27 @@ public class Reader extends AbstractLoggingActor {
 	// Actor Messages //
 	////////////////////
 
-	@Data
+	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class ReadMessage implements Serializable {
 		private static final long serialVersionUID = -3254147511955012292L;
+		private int idleWorkers;	// the number of workers that were without work when the previous batch arrived
 	}
-	
+
 	/////////////////
 	// Actor State //
 	/////////////////
-	
-	private CSVReader reader;
-	
-	private int bufferSize;
-	
-	private List<String[]> buffer;
-	
+
+	private SinkQueueWithCancel<List<String[]>> chunks;
+
+	private CompletionStage<Master.BatchMessage> lastRead = CompletableFuture.completedFuture(null);
+
+	private final Configuration configuration = ConfigurationSingleton.get();
+	private final BatchSizeController batchSize = this.configuration.isAdaptiveBatching()
+			? new BatchSizeController(this.configuration.getBufferSize(), this.configuration.getMinBatchSize(), this.configuration.getMaxBatchSize(), TimeUnit.MILLISECONDS.toNanos(this.configuration.getBatchTimeTarget()))
+			: null;
+	private final int chunkSize = this.configuration.isAdaptiveBatching() ? this.configuration.getMinBatchSize() : this.configuration.getBufferSize();	// batches are joined from chunks of this many records
+	private final AtomicLong lastDelivery = new AtomicLong(0);	// the time when the last batch was handed to the master
+
 	/////////////////////
 	// Actor Lifecycle //
 	/////////////////////
@@ -50,17 +76,28 @@ public class Reader extends AbstractLoggingActor {
 	@Override
 	public void preStart() throws Exception {
 		Reaper.watchWithDefaultReaper(this);
-		
-		this.reader = DatasetDescriptorSingleton.get().createCSVReader();
-		this.bufferSize = ConfigurationSingleton.get().getBufferSize();
-		this.buffer = new ArrayList<>(this.bufferSize);
-		
-		this.read();
+
+		final DatasetDescriptor datasetDescriptor = DatasetDescriptorSingleton.get();
+
+		// adaptive batching prefetches enough chunks for the configured number of batches of the largest size
+		final int largestBatch = this.configuration.isAdaptiveBatching() ? this.configuration.getMaxBatchSize() : this.configuration.getBufferSize();
+		final int prefetchChunks = this.configuration.getPrefetchBatches() * ((largestBatch + this.chunkSize - 1) / this.chunkSize);
+
+		// the records are read and parsed on the blocking IO dispatcher and prefetched into a bounded
+		// buffer of chunks; once the buffer is full, backpressure pauses the reading until the master pulls
+		this.chunks = Source.unfoldResource(
+					datasetDescriptor::createRecordReader,
+					(RecordReader reader) -> Optional.ofNullable(reader.readNext()),
+					RecordReader::close)
+				.grouped(this.chunkSize)
+				.withAttributes(ActorAttributes.dispatcher(BLOCKING_IO_DISPATCHER))
+				.buffer(prefetchChunks, OverflowStrategy.backpressure())
+				.runWith(Sink.queue(), ActorMaterializer.create(this.context()));
 	}
 
 	@Override
 	public void postStop() throws Exception {
-		this.reader.close();
+		this.chunks.cancel();
 	}
 
 	////////////////////
@@ -75,17 +112,48 @@ public class Reader extends AbstractLoggingActor {
 				.build();
 	}
 
-	private void handle(ReadMessage message) throws Exception {
-		this.sender().tell(new Master.BatchMessage(new ArrayList<>(this.buffer)), this.self());
-		
-		this.read();
+	private void handle(ReadMessage message) {
+		final ActorRef sender = this.sender();
+		final LoggingAdapter log = this.log();
+		final SinkQueueWithCancel<List<String[]>> chunks = this.chunks;
+		final AtomicLong lastDelivery = this.lastDelivery;
+
+		int numChunks = 1;
+		if (this.batchSize != null) {
+			// the master requests its next batch once it processed the last one
+			long delivered = lastDelivery.get();
+			if (delivered > 0) {
+				int previousSize = this.batchSize.size();
+				if (this.batchSize.update(System.nanoTime() - delivered, message.getIdleWorkers()) != previousSize)
+					log.debug("Adapted the batch size from {} to {}", previousSize, this.batchSize.size());
+			}
+			numChunks = (this.batchSize.size() + this.chunkSize - 1) / this.chunkSize;
+		}
+		final int batchChunks = numChunks;
+
+		// the queue allows only one pull at a time, so reads that overlap are chained
+		this.lastRead = this.lastRead
+				.thenCompose(previous -> pull(chunks, batchChunks, new ArrayList<>()))
+				.handle((lines, failure) -> {
+					if (failure != null)
+						log.error(failure, "Reading the dataset failed");
+
+					// an empty batch tells the master that the input is exhausted
+					lastDelivery.set(System.nanoTime());
+					return new Master.BatchMessage((lines != null) ? lines : new ArrayList<>());
+				});
+
+		Patterns.pipe(this.lastRead, this.context().dispatcher()).to(sender, this.self());
 	}
-	
-	private void read() throws Exception {
-		this.buffer.clear();
-		
-		String[] line;
-		while ((this.buffer.size() < this.bufferSize) && ((line = this.reader.readNext()) != null))
-			this.buffer.add(line);
+
+	// Pulls up to the given number of chunks and appends their records to the lines
+	private static CompletionStage<List<String[]>> pull(SinkQueueWithCancel<List<String[]>> chunks, int numChunks, List<String[]> lines) {
+		return chunks.pull().thenCompose(chunk -> {
+			if (!chunk.isPresent())
+				return CompletableFuture.completedFuture(lines);
+
+			lines.addAll(chunk.get());
+			return (numChunks > 1) ? pull(chunks, numChunks - 1, lines) : CompletableFuture.completedFuture(lines);
+		});
 	}
 }
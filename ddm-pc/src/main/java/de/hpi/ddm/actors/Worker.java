@@ -1,12 +1,11 @@
 package de.hpi.ddm.actors;
 
 import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.ActorRef;
@@ -18,7 +17,16 @@ import akka.cluster.ClusterEvent.MemberRemoved;
 import akka.cluster.ClusterEvent.MemberUp;
 import akka.cluster.Member;
 import akka.cluster.MemberStatus;
+import akka.event.LoggingAdapter;
 import de.hpi.ddm.MasterSystem;
+import de.hpi.ddm.configuration.ConfigurationSingleton;
+import de.hpi.ddm.structures.DigestIndex;
+import de.hpi.ddm.structures.HintIndexCache;
+import de.hpi.ddm.structures.HintSearchPool;
+import de.hpi.ddm.structures.NodeStatistics;
+import de.hpi.ddm.structures.Odometer;
+import de.hpi.ddm.structures.PermutationSearch;
+import de.hpi.ddm.structures.Sha256Engine;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -31,6 +39,9 @@ public class Worker extends AbstractLoggingActor {
 	
 	public static final String DEFAULT_NAME = "worker";
 
+	// the largest number of permutations that a parallel hint search tests in one fork/join task
+	private static final long PARALLEL_SPLIT_SIZE = 20000;
+
 	public static Props props() {
 		return Props.create(Worker.class);
 	}
@@ -46,17 +57,34 @@ public class Worker extends AbstractLoggingActor {
 	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class PasswordMessage implements Serializable {
 		private static final long serialVersionUID = 4057807743872319842L;
+		private long taskId;
 		private int passwordLength;
 		private String passwordChars;
-		private String password;
+		private DigestIndex passwords;	// the target digests of all passwords in this job by their IDs
 	}
 
 	@Data @NoArgsConstructor @AllArgsConstructor
 	public static class HintsMessage implements Serializable {
 		private static final long serialVersionUID = 7647246076267640540L;
+		private long taskId;
+		private int batchId;
 		private String sequence;
-		private HashMap<String, LinkedList<Integer>> hints;
 		private char missingChar;
+		private long from;	// lexicographic rank of the first permutation of sequence to test
+		private long to;	// rank after the last permutation to test
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class HintsDoneMessage implements Serializable {
+		private static final long serialVersionUID = 2216457431264941707L;
+		private int batchId;
+	}
+
+	@Data @NoArgsConstructor @AllArgsConstructor
+	public static class HintIndexMessage implements Serializable {
+		private static final long serialVersionUID = -4468219305467442853L;
+		private int batchId;
+		private DigestIndex hints;
 	}
 
 	/////////////////
@@ -65,9 +93,14 @@ public class Worker extends AbstractLoggingActor {
 
 	private Member masterSystem;
 	private final Cluster cluster;
+	private final HintIndexCache hintIndexCache = HintIndexCache.get(this.context().system());
+	private final NodeStatistics statistics = NodeStatistics.get(this.context().system());
+	private final List<HintsMessage> pendingHints = new ArrayList<>();
+	private final boolean parallel = ConfigurationSingleton.get().isParallelHints();
+	private final int workWindow = ConfigurationSingleton.get().getWorkWindow();
+	private final HintSearchPool hintSearchPool = HintSearchPool.get(this.context().system());
 
-	private HashSet<String> permutations = new HashSet<String>();
-	private HashMap<String, String> possiblePasswords = new HashMap<String, String>();
+	private final Sha256Engine engine = new Sha256Engine();
 
 	/////////////////////
 	// Actor Lifecycle //
@@ -97,6 +130,8 @@ public class Worker extends AbstractLoggingActor {
 				.match(MemberRemoved.class, this::handle)
 				.match(PasswordMessage.class, this::handle)
 				.match(HintsMessage.class, this::handle)
+				.match(HintIndexMessage.class, this::handle)
+				.match(HintsDoneMessage.class, this::handle)
 				.matchAny(object -> this.log().info("Received unknown message: \"{}\"", object.toString()))
 				.build();
 	}
@@ -118,7 +153,7 @@ public class Worker extends AbstractLoggingActor {
 			
 			this.getContext()
 				.actorSelection(member.address() + "/user/" + Master.DEFAULT_NAME)
-				.tell(new Master.RegistrationMessage(), this.self());
+				.tell(new Master.RegistrationMessage(this.workWindow), this.self());
 		}
 	}
 	
@@ -127,110 +162,126 @@ public class Worker extends AbstractLoggingActor {
 			this.self().tell(PoisonPill.getInstance(), ActorRef.noSender());
 	}
 
-	private void handle(HintsMessage message) {
-		this.permutations.clear();
+	private void handle(HintsDoneMessage message) {
+		// raising the node's flag also stops the searches of the other workers on this node
+		this.hintIndexCache.markDone(message.batchId);
+	}
 
-		char[] sequence = message.sequence.toCharArray();
-		heapPermutation(sequence, sequence.length, sequence.length, this.permutations, message.hints, message.missingChar);
+	private void handle(HintIndexMessage message) {
+		// without an index, the batch's hint work was completed before this node asked for it
+		if (message.hints == null)
+			this.hintIndexCache.markDone(message.batchId);
+		else
+			this.hintIndexCache.put(message.batchId, message.hints);
 
-		Master.HintsCompletedMessage msg = new Master.HintsCompletedMessage();
-		msg.setMissingChar(message.missingChar);
-		this.sender().tell(msg, this.self());
+		// resume the work that arrived on this node before its index did
+		List<HintsMessage> resumed = new ArrayList<>();
+		Iterator<HintsMessage> pending = this.pendingHints.iterator();
+		while (pending.hasNext()) {
+			HintsMessage work = pending.next();
+			if (work.batchId == message.batchId) {
+				pending.remove();
+				resumed.add(work);
+			}
+		}
+		resumed.forEach(this::handle);
 	}
 
-	private void handle(PasswordMessage message) {
-		//all letters that are left -> generate all possible strings, hash them, compare with password
-		char[] set = message.passwordChars.toCharArray();
-		int k = message.passwordLength;
-		int n = set.length;
-		this.possiblePasswords.clear();
-		possibleKStrings(set, "", n, k, possiblePasswords);
-		if(possiblePasswords.containsKey(message.password)) {
-			//return password in password message
-			Master.PasswordCompletedMessage msg = new Master.PasswordCompletedMessage();
-			msg.setResult(possiblePasswords.get(message.password));
-			this.sender().tell(msg, this.self());
+	private void handle(HintsMessage message) {
+		// all hints of the batch were resolved while this message was in flight
+		if (this.hintIndexCache.isDone(message.batchId)) {
+			this.sender().tell(new Master.HintsCompletedMessage(message.taskId, message.batchId, message.missingChar, 0, 0), this.self());
 			return;
 		}
-		System.out.println("No password found!");
-	}
-	
-	private String hash(String line) {
-		try {
-			MessageDigest digest = MessageDigest.getInstance("SHA-256");
-			byte[] hashedBytes = digest.digest(String.valueOf(line).getBytes("UTF-8"));
-			
-			StringBuffer stringBuffer = new StringBuffer();
-			for (int i = 0; i < hashedBytes.length; i++) {
-				stringBuffer.append(Integer.toString((hashedBytes[i] & 0xff) + 0x100, 16).substring(1));
-			}
-			return stringBuffer.toString();
-		}
-		catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
-			throw new RuntimeException(e.getMessage());
+
+		DigestIndex hints = this.hintIndexCache.get(message.batchId);
+
+		// the master delivers each index only once per node, so another worker on this node may not have cached it yet
+		if (hints == null) {
+			this.pendingHints.add(message);
+			this.sender().tell(new Master.HintIndexRequestMessage(message.batchId), this.self());
+			return;
 		}
+
+		this.crack(message, hints);
 	}
-	
-	// Generating all permutations of an array using Heap's Algorithm
-	// the permutations are hashed and compared to the hints
-	// sends a message to the master if a hint is decrypted
-	// https://en.wikipedia.org/wiki/Heap's_algorithm
-	// https://www.geeksforgeeks.org/heaps-algorithm-for-generating-permutations/
-	private void heapPermutation(char[] a, int size, int n, HashSet<String> l, HashMap<String, LinkedList<Integer>> hints, char missingChar) {
-		// If size is 1, store the obtained permutation
-		if (size == 1){
-			String sequence = hash(String.valueOf(a));
-
-			if(hints.containsKey(sequence)) {
-				LinkedList<Integer> values = hints.get(sequence);
-				for (int index : values) {
-					Master.PasswordCharMessage msg = new Master.PasswordCharMessage();
-					msg.setPasswordIndex(index);
-					msg.setMissingChar(missingChar);
-					this.sender().tell(msg, this.self());
-				}
-			}
-			l.add(sequence);
-		}
 
-		for (int i = 0; i < size; i++) {
-			heapPermutation(a, size - 1, n, l, hints, missingChar);
+	private void crack(HintsMessage message, DigestIndex hints) {
+		final ActorRef master = this.sender();
+		final ActorRef self = this.self();
+		final LoggingAdapter log = this.log();
+		final AtomicBoolean done = this.hintIndexCache.doneFlag(message.batchId);
+		final NodeStatistics statistics = this.statistics;
 
-			// If size is odd, swap first and last element
-			if (size % 2 == 1) {
-				char temp = a[0];
-				a[0] = a[size - 1];
-				a[size - 1] = temp;
-			}
+		// sends a message to the master if a hint is decrypted
+		PermutationSearch search = new PermutationSearch(Sha256Engine.toBytes(message.sequence), message.from, message.to, this.parallel ? PARALLEL_SPLIT_SIZE : Long.MAX_VALUE, hints, done, (passwordIndex, permutation) -> {
+			Master.PasswordCharMessage msg = new Master.PasswordCharMessage();
+			msg.setBatchId(message.batchId);
+			msg.setPasswordIndex(passwordIndex);
+			msg.setMissingChar(message.missingChar);
+			msg.setHint(new String(permutation, StandardCharsets.US_ASCII));
+			master.tell(msg, self);
+		});
 
-			// If size is even, swap i-th and last element
-			else {
-				char temp = a[i];
-				a[i] = a[size - 1];
-				a[size - 1] = temp;
-			}
-		}
-	}
+		Master.HintsCompletedMessage msg = new Master.HintsCompletedMessage();
+		msg.setTaskId(message.taskId);
+		msg.setBatchId(message.batchId);
+		msg.setMissingChar(message.missingChar);
 
-	// Generating all possible strings of length k
-	// strings are hashed
-	// https://www.geeksforgeeks.org/print-all-combinations-of-given-length/
-	private void possibleKStrings(char[] set, String prefix, int n, int k, HashMap<String, String> l)
-	{
-		// Base case: k is 0, store prefix
-		if (k == 0)
-		{
-			l.put(hash(prefix), prefix);
+		final long startTime = System.nanoTime();
+		if (!this.parallel) {
+			msg.setHashes(search.invoke());
+			msg.setNanos(System.nanoTime() - startTime);
+			statistics.addHashes(msg.getHashes());
+			master.tell(msg, self);
 			return;
 		}
 
-		// One by one add all characters from set and recursively call for k equals to k-1
-		for (int i = 0; i < n; ++i)
-		{
-			// Next character of input added
-			String newPrefix = prefix + set[i];
-			// k is decreased, because we have added a new character
-			possibleKStrings(set, newPrefix, n, k - 1, l);
-		}
+		// the search forks into the cores of this node while the worker's mailbox stays responsive
+		this.hintSearchPool.search(search).whenComplete((hashes, failure) -> {
+			if (failure != null) {
+				// the master must search the range again, so the failure is not reported as a completion
+				log.error(failure, "Parallel hint search for {} failed", message.sequence);
+				master.tell(new Master.HintsFailedMessage(message.taskId, message.batchId), self);
+				return;
+			}
+
+			msg.setHashes(hashes);
+			msg.setNanos(System.nanoTime() - startTime);
+			statistics.addHashes(hashes);
+			master.tell(msg, self);
+		});
+	}
+
+	private void handle(PasswordMessage message) {
+		//all letters that are left -> enumerate all possible strings once, hash them, compare with all passwords of the job
+		long startTime = System.nanoTime();
+		DigestIndex passwords = message.passwords;
+		int k = message.passwordLength;
+		Odometer candidates = new Odometer(Sha256Engine.toBytes(message.passwordChars), k);
+
+		boolean[] cracked = new boolean[passwords.size()];
+		int uncracked = passwords.size();
+		long hashes = 0;
+		do {
+			hashes++;
+			int slot = passwords.find(this.engine.hash(candidates.candidate(), k));
+			if ((slot < 0) || cracked[slot])
+				continue;
+
+			//return password in password cracked messages
+			String result = new String(candidates.candidate(), StandardCharsets.US_ASCII);
+			for (int i = passwords.start(slot); i < passwords.end(slot); i++)
+				this.sender().tell(new Master.PasswordCrackedMessage(passwords.id(i), result), this.self());
+
+			cracked[slot] = true;
+			uncracked--;
+		} while ((uncracked > 0) && candidates.next());
+		this.statistics.addHashes(hashes);
+
+		if (uncracked > 0)
+			this.log().warning("No password found for {} of {} passwords!", uncracked, passwords.size());
+
+		this.sender().tell(new Master.PasswordCompletedMessage(message.taskId, hashes, System.nanoTime() - startTime), this.self());
 	}
-}
\ No newline at end of file
+}
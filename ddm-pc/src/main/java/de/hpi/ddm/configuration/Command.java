@@ -14,5 +14,11 @@ public abstract class Command {
 
 	@Parameter(names = { "-w", "--numWorkers" }, description = "The number of workers (indexers/validators) to start locally; should be at least one if the algorithm is started standalone (otherwise there are no workers to run the discovery)", required = false)
 	int numWorkers = ConfigurationSingleton.get().getNumWorkers();
+
+	@Parameter(names = { "-ph", "--parallelHints" }, description = "Let every worker split its hint permutations into fork/join tasks that use all cores of its node", required = false)
+	boolean parallelHints = ConfigurationSingleton.get().isParallelHints();
+
+	@Parameter(names = { "-ww", "--workWindow" }, description = "Number of tasks that every local worker asks the master to keep outstanding for it; larger windows hide the round trip between tasks", required = false)
+	int workWindow = ConfigurationSingleton.get().getWorkWindow();
 	
 }
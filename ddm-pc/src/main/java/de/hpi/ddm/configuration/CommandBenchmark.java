@@ -0,0 +1,36 @@
+package de.hpi.ddm.configuration;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+import lombok.Getter;
+
+@Parameters(commandDescription = "crack a synthetic dataset with a master and several slave actor systems in this JVM and report their throughput")
+@Getter
+public class CommandBenchmark extends Command {
+
+	public static final String NAME = "benchmark";
+
+	@Override
+	int getDefaultPort() {
+		return Configuration.DEFAULT_MASTER_PORT;
+	}
+
+	@Parameter(names = { "-ns", "--numSlaves" }, description = "The number of slave actor systems to start next to the master; they bind to the ports following the master's port", required = false)
+	int numSlaves = 2;
+
+	@Parameter(names = { "-r", "--records" }, description = "The number of passwords in the synthetic dataset", required = false)
+	int records = 100;
+
+	@Parameter(names = { "-a", "--alphabet" }, description = "The password chars of the synthetic dataset", required = false)
+	String alphabet = "ABCDEFGHIJ";
+
+	@Parameter(names = { "-pl", "--passwordLength" }, description = "The length of the synthetic passwords", required = false)
+	int passwordLength = 10;
+
+	@Parameter(names = { "-nh", "--numHints" }, description = "The number of hints per synthetic password, i.e., the number of alphabet chars that the password misses", required = false)
+	int numHints = 8;
+
+	@Parameter(names = { "-s", "--seed" }, description = "The seed of the synthetic dataset", required = false)
+	long seed = 42;
+}
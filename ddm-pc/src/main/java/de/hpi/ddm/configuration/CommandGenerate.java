@@ -0,0 +1,42 @@
+package de.hpi.ddm.configuration;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+import de.hpi.ddm.structures.DatasetGenerator;
+import lombok.Getter;
+
+@Parameters(commandDescription = "generate a synthetic password dataset with known plaintexts")
+@Getter
+public class CommandGenerate {
+
+	public static final String NAME = "generate";
+
+	@Parameter(names = { "-o", "--output" }, description = "The dataset file to write", required = true)
+	String output;
+
+	@Parameter(names = { "-so", "--solutions" }, description = "The file to write the ID and plaintext of every password to; by default, no solutions are written", required = false)
+	String solutions = null;
+
+	@Parameter(names = { "-r", "--records" }, description = "The number of passwords", required = false)
+	int records = 10000;
+
+	@Parameter(names = { "-a", "--alphabet" }, description = "The password chars", required = false)
+	String alphabet = "ABCDEFGHIJK";
+
+	@Parameter(names = { "-as", "--alphabetSize" }, description = "Use the first chars of A-Z, a-z and 0-9 as password chars instead of --alphabet", required = false)
+	int alphabetSize = 0;
+
+	@Parameter(names = { "-pl", "--passwordLength" }, description = "The length of the passwords", required = false)
+	int passwordLength = 10;
+
+	@Parameter(names = { "-nh", "--numHints" }, description = "The number of hints per password, i.e., the number of password chars that every password misses", required = false)
+	int numHints = 9;
+
+	@Parameter(names = { "-s", "--seed" }, description = "The seed of the random passwords and hints", required = false)
+	long seed = 42;
+
+	public String getAlphabet() {
+		return (this.alphabetSize > 0) ? DatasetGenerator.alphabet(this.alphabetSize) : this.alphabet;
+	}
+}
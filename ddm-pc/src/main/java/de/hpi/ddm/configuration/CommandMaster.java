@@ -18,6 +18,42 @@ public class CommandMaster extends Command {
 
 	@Parameter(names = { "-bs", "--bufferSize" }, description = "Buffer for input reading (the DatasetReader pre-fetches and buffers this many records)", required = false)
 	int bufferSize = ConfigurationSingleton.get().getBufferSize();
+
+	@Parameter(names = { "-pb", "--prefetchBatches" }, description = "Number of batches (at least 1) that the DatasetReader reads and parses ahead of the master's requests", required = false, validateWith = PositiveInt.class)
+	int prefetchBatches = ConfigurationSingleton.get().getPrefetchBatches();
+
+	@Parameter(names = { "-ab", "--adaptiveBatching" }, description = "Grow the batches (starting at --bufferSize) while workers idle and shrink them while the master takes longer than --batchTimeTarget per batch", required = false)
+	boolean adaptiveBatching = ConfigurationSingleton.get().isAdaptiveBatching();
+
+	@Parameter(names = { "-bmin", "--minBatchSize" }, description = "Smallest adaptive batch size; adaptive batches are multiples of it", required = false)
+	int minBatchSize = ConfigurationSingleton.get().getMinBatchSize();
+
+	@Parameter(names = { "-bmax", "--maxBatchSize" }, description = "Largest adaptive batch size", required = false)
+	int maxBatchSize = ConfigurationSingleton.get().getMaxBatchSize();
+
+	@Parameter(names = { "-bt", "--batchTimeTarget" }, description = "Milliseconds that the master may take per batch, including the wait in its mailbox, before adaptive batches shrink", required = false)
+	int batchTimeTarget = ConfigurationSingleton.get().getBatchTimeTarget();
+
+	@Parameter(names = { "-hc", "--hintChunkSize" }, description = "Maximum number of permutations per hint message (at least 1); smaller chunks balance the hint cracking across more workers", required = false, validateWith = PositiveLong.class)
+	long hintChunkSize = ConfigurationSingleton.get().getHintChunkSize();
+
+	@Parameter(names = { "-pg", "--passwordGroupSize" }, description = "Maximum number of passwords with equal chars and length that are cracked together in one pass over their candidates (at least 1); 1 disables grouping", required = false, validateWith = PositiveInt.class)
+	int passwordGroupSize = ConfigurationSingleton.get().getPasswordGroupSize();
+
+	@Parameter(names = { "-sf", "--speculationFactor" }, description = "Re-execute a task on an idle worker once it takes this many times longer than the average task of its kind; 0 disables speculative re-execution", required = false)
+	double speculationFactor = ConfigurationSingleton.get().getSpeculationFactor();
+
+	@Parameter(names = { "-sc", "--solutionCache" }, description = "File that stores all cracked hints and passwords; digests that it already holds are not searched again", required = false)
+	String solutionCache = ConfigurationSingleton.get().getSolutionCache();
+
+	@Parameter(names = { "-pt", "--permutationTables" }, description = "Directory with precomputed hint digest tables; batches whose alphabet has a table resolve their hints by lookups instead of hint work", required = false)
+	String permutationTables = ConfigurationSingleton.get().getPermutationTables();
+
+	@Parameter(names = { "-of", "--outputFile" }, description = "File that the results are written to as they arrive; by default, the results are logged", required = false)
+	String outputFile = ConfigurationSingleton.get().getOutputFile();
+
+	@Parameter(names = { "-mi", "--metricsInterval" }, description = "Seconds between two log lines with the hash rates, queue lengths, busy and idle workers, batch latencies and the collected results; 0 logs them only at the end. The metrics are also exposed as the JMX MBean de.hpi.ddm:type=MasterMetrics", required = false)
+	int metricsInterval = ConfigurationSingleton.get().getMetricsInterval();
 	
 	// DatasetDescriptor
 	
@@ -51,6 +87,9 @@ public class CommandMaster extends Command {
 	@Parameter(names = { "-viw", "--valueIgnoreLeadingWhitespace" }, description = "Ignore i.e. delete all whitespaces preceding any read value ", required = false)
 	boolean attributeIgnoreLeadingWhitespace = DatasetDescriptorSingleton.get().isValueIgnoreLeadingWhitespace();
 
-	@Parameter(names = { "-rsdl", "--readerSkipDifferingLines" }, description = "True if the reader should skip lines in the input that have a different length as the first line", required = false)
+	@Parameter(names = { "-rsdl", "--readerSkipDifferingLines" }, description = "True if the memory-mapped reader (see --memoryMapped) should skip lines in the input that have a different length as the first line", required = false)
 	boolean readerSkipDifferingLines = DatasetDescriptorSingleton.get().isReaderSkipDifferingLines();
+
+	@Parameter(names = { "-mm", "--memoryMapped" }, description = "Memory-map the input and split its records without opencsv; the values must not be quoted or escaped, and the charset must be single-byte or UTF-8", required = false)
+	boolean memoryMapped = DatasetDescriptorSingleton.get().isMemoryMapped();
 }
@@ -0,0 +1,19 @@
+package de.hpi.ddm.configuration;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+import lombok.Getter;
+
+@Parameters(commandDescription = "precompute the hint digest table of an alphabet")
+public class CommandPrecompute {
+
+	public static final String NAME = "precompute";
+
+	@Parameter(names = { "-pt", "--permutationTables" }, description = "Directory that holds the hint digest tables", required = true)
+	String permutationTables;
+
+	@Parameter(names = { "-a", "--alphabet" }, description = "The password chars of the dataset, e.g., ABCDEFGHIJK", required = true)
+	@Getter
+	String alphabet;
+}
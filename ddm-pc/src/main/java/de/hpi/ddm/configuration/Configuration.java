@@ -3,6 +3,8 @@ package de.hpi.ddm.configuration;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import com.beust.jcommander.ParameterException;
+
 import lombok.Data;
 
 @Data
@@ -21,10 +23,38 @@ public class Configuration {
 	
 	private int numWorkers = 3;						// The number of workers to start locally; should be at least one if the algorithm is started standalone (otherwise there are no workers to run the application)
 	
+	private boolean parallelHints = false;			// Search the permutations of a hint message with all cores of a node (in the node's hint search pool) instead of on the worker's thread
+	
+	private long hintChunkSize = 100000;			// The maximum number of permutations that one hint message asks a worker to test; the permutations of each sequence are cut into evenly sized chunks of at most this size
+	
+	private int passwordGroupSize = 64;				// The maximum number of passwords with equal chars and length that one password message cracks together; 1 cracks every password on its own
+	
+	private int workWindow = 2;						// The number of tasks that the master keeps outstanding at each worker, so that workers have their next task at hand when they finish one
+	
+	private double speculationFactor = 2.0;			// Re-execute a task on an otherwise idle worker once it is outstanding for this many times the average duration of its kind; 0 disables speculative re-execution
+	
+	private String solutionCache = null;			// The file that persists cracked hints and passwords across runs; null disables the cache
+	
+	private String permutationTables = null;		// The directory with the precomputed hint digest tables (see the precompute command); null searches all hints on the workers
+	
+	private String outputFile = null;				// The file that the collector streams all results into; null logs the results
+	
+	private int metricsInterval = 10;				// The seconds between two log lines of the master's metrics, which are also exposed via JMX; 0 disables the log lines
+	
 	private boolean startPaused = false;			// Wait for some console input to start; useful, if we want to wait manually until all ActorSystems in the cluster are started (e.g. to avoid work stealing effects in performance evaluations)
 	
 	private int bufferSize = 50; 					// Buffer for input reading (the DatasetReader pre-fetches and buffers this many records)
 	
+	private int prefetchBatches = 4;				// The number of batches that the DatasetReader reads ahead of the master's requests
+	
+	private boolean adaptiveBatching = false;		// Let the DatasetReader adapt the batch size between minBatchSize and maxBatchSize to the master's processing time and the idle workers, starting with bufferSize
+	
+	private int minBatchSize = 10;					// The smallest adaptive batch size; adaptive batches are multiples of it
+	
+	private int maxBatchSize = 1000;				// The largest adaptive batch size
+	
+	private int batchTimeTarget = 50;				// The milliseconds that the master may take per batch, including the wait in its mailbox, before adaptive batches shrink
+	
 	private static String getDefaultHost() {
         try {
             return InetAddress.getLocalHost().getHostAddress();
@@ -34,11 +64,43 @@ public class Configuration {
     }
 
 	public void update(CommandMaster commandMaster) {
+		// the reader builds its batch size controller only once it runs, where a failure would leave the master waiting for batches
+		if ((commandMaster.minBatchSize < 1) || (commandMaster.maxBatchSize < commandMaster.minBatchSize))
+			throw new ParameterException("Batch sizes need 1 <= --minBatchSize <= --maxBatchSize, but got " + commandMaster.minBatchSize + " and " + commandMaster.maxBatchSize);
+
 		this.host = commandMaster.host;
 		this.port = commandMaster.port;
 		this.numWorkers = commandMaster.numWorkers;
+		this.parallelHints = commandMaster.parallelHints;
+		this.workWindow = commandMaster.workWindow;
+		this.speculationFactor = commandMaster.speculationFactor;
+		this.solutionCache = commandMaster.solutionCache;
+		this.permutationTables = commandMaster.permutationTables;
+		this.outputFile = commandMaster.outputFile;
+		this.metricsInterval = commandMaster.metricsInterval;
 		this.startPaused = commandMaster.startPaused;
 		this.bufferSize = commandMaster.bufferSize;
+		this.prefetchBatches = commandMaster.prefetchBatches;
+		this.adaptiveBatching = commandMaster.adaptiveBatching;
+		this.minBatchSize = commandMaster.minBatchSize;
+		this.maxBatchSize = commandMaster.maxBatchSize;
+		this.batchTimeTarget = commandMaster.batchTimeTarget;
+		this.hintChunkSize = commandMaster.hintChunkSize;
+		this.passwordGroupSize = commandMaster.passwordGroupSize;
+	}
+
+	public void update(CommandBenchmark commandBenchmark) {
+		this.host = commandBenchmark.host;
+		this.port = commandBenchmark.port;
+		this.masterHost = commandBenchmark.host;
+		this.masterPort = commandBenchmark.port;
+		this.numWorkers = commandBenchmark.numWorkers;
+		this.parallelHints = commandBenchmark.parallelHints;
+		this.workWindow = commandBenchmark.workWindow;
+	}
+
+	public void update(CommandPrecompute commandPrecompute) {
+		this.permutationTables = commandPrecompute.permutationTables;
 	}
 
 	public void update(CommandSlave commandSlave) {
@@ -47,5 +109,7 @@ public class Configuration {
 		this.masterHost = commandSlave.masterhost;
 		this.masterPort = commandSlave.masterport;
 		this.numWorkers = commandSlave.numWorkers;
+		this.parallelHints = commandSlave.parallelHints;
+		this.workWindow = commandSlave.workWindow;
 	}
 }
@@ -16,6 +16,7 @@ import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.enums.CSVReaderNullFieldIndicator;
 
+import de.hpi.ddm.structures.MappedDataset;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -38,7 +39,9 @@ public class DatasetDescriptor implements Serializable {
 	private boolean valueStrictQuotes = false;
 	private boolean valueIgnoreLeadingWhitespace = true;	// Ignore i.e. delete all whitespaces preceding any read value 
 	
-	private boolean readerSkipDifferingLines = true;		// True if the reader should skip lines in the input that have a different length as the first line
+	private boolean readerSkipDifferingLines = true;		// True if the memory-mapped reader should skip lines in the input that have a different length as the first line
+	
+	private boolean memoryMapped = false;					// True if the input should be memory-mapped and split without opencsv (no quoting or escaping; single-byte charsets or UTF-8 only)
 	
 	public String getDatasetPathNameEnding() {
 		String pathNameSeparator = this.datasetPath.endsWith(File.separator) ? "" : File.separator;
@@ -59,10 +62,60 @@ public class DatasetDescriptor implements Serializable {
 		this.valueStrictQuotes = commandMaster.attributeStrictQuotes;
 		this.valueIgnoreLeadingWhitespace = commandMaster.attributeIgnoreLeadingWhitespace;
 		this.readerSkipDifferingLines = commandMaster.readerSkipDifferingLines;
+		this.memoryMapped = commandMaster.memoryMapped;
+	}
+
+	public RecordReader createRecordReader() throws IOException {
+		// the mapped reader does not validate the records like opencsv does, so it can skip the malformed ones
+		if (this.memoryMapped)
+			return this.readerSkipDifferingLines ? skipDifferingLines(this.createMappedDataset()) : this.createMappedDataset();
+
+		CSVReader csvReader = this.createCSVReader();
+		return new RecordReader() {
+			@Override
+			public String[] readNext() throws IOException {
+				return csvReader.readNext();
+			}
+
+			@Override
+			public void close() throws IOException {
+				csvReader.close();
+			}
+		};
+	}
+
+	// Drops all records whose number of values differs from the first record's
+	private static RecordReader skipDifferingLines(RecordReader reader) {
+		return new RecordReader() {
+			private int length = -1;
+
+			@Override
+			public String[] readNext() throws IOException {
+				String[] line = reader.readNext();
+				while ((line != null) && (this.length >= 0) && (line.length != this.length))
+					line = reader.readNext();
+				if ((line != null) && (this.length < 0))
+					this.length = line.length;
+				return line;
+			}
+
+			@Override
+			public void close() throws IOException {
+				reader.close();
+			}
+		};
+	}
+
+	public MappedDataset createMappedDataset() throws IOException {
+		return MappedDataset.open(this.getPath(), this.charset, this.valueSeparator, this.fileHasHeader, this.valueIgnoreLeadingWhitespace);
+	}
+
+	private Path getPath() {
+		return Paths.get(this.datasetPath + this.datasetName + this.datasetEnding);
 	}
 
 	public CSVReader createCSVReader() throws IOException {
-		Path path = Paths.get(this.datasetPath + this.datasetName + this.datasetEnding);
+		Path path = this.getPath();
 		
 		CSVParser parser = new CSVParserBuilder()
 				.withSeparator(this.valueSeparator)
@@ -0,0 +1,20 @@
+package de.hpi.ddm.configuration;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Rejects long parameter values below 1; jcommander's PositiveInteger covers only int values.
+ */
+public class PositiveLong implements IParameterValidator {
+
+	@Override
+	public void validate(String name, String value) throws ParameterException {
+		try {
+			if (Long.parseLong(value) < 1)
+				throw new ParameterException("Parameter " + name + " should be positive (found " + value + ")");
+		} catch (NumberFormatException e) {
+			throw new ParameterException("Parameter " + name + " should be a number (found " + value + ")");
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package de.hpi.ddm.configuration;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of a dataset one after the other.
+ */
+public interface RecordReader extends Closeable {
+
+	/**
+	 * Reads the next record.
+	 * @return the values of the next record or null if the dataset is exhausted
+	 * @throws IOException if reading the dataset fails
+	 */
+	String[] readNext() throws IOException;
+}
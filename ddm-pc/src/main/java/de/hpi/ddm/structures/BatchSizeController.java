@@ -0,0 +1,59 @@
+package de.hpi.ddm.structures;
+
+/**
+ * Adapts the size of the batches that the reader hands to the master. The master requests
+ * its next batch when it finished the last one, so the time between handing out a batch
+ * and the next request covers the master's processing of the batch and the wait in its
+ * mailbox. If that time exceeds the target, the master is the bottleneck and the batches
+ * are halved; if it does not and some workers idled when the last batch arrived, the workers
+ * starve for work and the batches are doubled. The size always stays within the configured bounds.
+ */
+public class BatchSizeController {
+
+	private final int minSize;
+	private final int maxSize;
+	private final long targetNanos;
+
+	private int size;
+
+	/**
+	 * @param initialSize the size of the first batch
+	 * @param minSize the smallest batch size
+	 * @param maxSize the largest batch size
+	 * @param targetNanos the longest time that the master should take per batch
+	 */
+	public BatchSizeController(int initialSize, int minSize, int maxSize, long targetNanos) {
+		if ((minSize < 1) || (maxSize < minSize))
+			throw new IllegalArgumentException("Batch sizes need 1 <= min <= max, but got " + minSize + " and " + maxSize);
+
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.targetNanos = targetNanos;
+		this.size = this.clamp(initialSize);
+	}
+
+	/**
+	 * Adapts the batch size to the master's last batch.
+	 * @param processingNanos the time between handing out the last batch and the master's next request
+	 * @param idleWorkers the number of workers that were without work when the last batch arrived
+	 * @return the size of the next batch
+	 */
+	public int update(long processingNanos, int idleWorkers) {
+		if (processingNanos > this.targetNanos)
+			this.size = this.clamp(this.size / 2);
+		else if (idleWorkers > 0)
+			this.size = this.clamp(this.size * 2);
+		return this.size;
+	}
+
+	/**
+	 * @return the size of the next batch
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	private int clamp(int size) {
+		return Math.max(this.minSize, Math.min(this.maxSize, size));
+	}
+}
@@ -0,0 +1,108 @@
+package de.hpi.ddm.structures;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates password datasets in the input format of the master, i.e., rows of
+ * ID;Name;PasswordChars;PasswordLength;Password;Hint1;...;HintN with a header line. Every
+ * password misses N distinct chars of the alphabet and is drawn uniformly from the other
+ * chars; its hints are random permutations of the alphabet without one of the missing chars
+ * each. Passwords and hints are stored as SHA-256 hex digests, and the plaintexts can be
+ * written to a separate solutions file of ID;Password rows. A seed makes datasets reproducible.
+ */
+public class DatasetGenerator {
+
+	private static final String CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+	private final byte[] alphabet;
+	private final int passwordLength;
+	private final int numHints;
+	private final Random random;
+	private final Sha256Engine engine = new Sha256Engine();
+
+	/**
+	 * @param alphabet the distinct password chars
+	 * @param passwordLength the length of all passwords
+	 * @param numHints the number of hints per password, which is the number of chars that every password misses
+	 * @param seed the seed of the random choices
+	 */
+	public DatasetGenerator(String alphabet, int passwordLength, int numHints, long seed) {
+		if (alphabet.chars().distinct().count() != alphabet.length())
+			throw new IllegalArgumentException("The alphabet " + alphabet + " has duplicate chars");
+		if ((numHints < 0) || (numHints >= alphabet.length()))
+			throw new IllegalArgumentException("The number of hints must be smaller than the alphabet size " + alphabet.length());
+		if (passwordLength < 1)
+			throw new IllegalArgumentException("Passwords need at least one char");
+
+		this.alphabet = Sha256Engine.toBytes(alphabet);
+		this.passwordLength = passwordLength;
+		this.numHints = numHints;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @param size the number of chars, at most 62
+	 * @return the first chars of A-Z, a-z and 0-9
+	 */
+	public static String alphabet(int size) {
+		if ((size < 1) || (size > CHARS.length()))
+			throw new IllegalArgumentException("Alphabets have between 1 and " + CHARS.length() + " chars");
+		return CHARS.substring(0, size);
+	}
+
+	/**
+	 * Writes a dataset.
+	 * @param dataset receives the dataset's rows
+	 * @param solutions receives the ID and plaintext of every password; may be null
+	 * @param records the number of passwords
+	 * @throws IOException if a writer fails
+	 */
+	public void write(Writer dataset, Writer solutions, int records) throws IOException {
+		String chars = new String(this.alphabet, StandardCharsets.US_ASCII);
+
+		dataset.write("ID;Name;PasswordChars;PasswordLength;Password");
+		for (int i = 1; i <= this.numHints; i++)
+			dataset.write(";Hint" + i);
+		dataset.write('\n');
+
+		byte[] shuffled = this.alphabet.clone();
+		byte[] password = new byte[this.passwordLength];
+		byte[] hint = new byte[this.alphabet.length - 1];
+		for (int id = 1; id <= records; id++) {
+			// the first numHints chars are missing from the password
+			this.shuffle(shuffled);
+			for (int i = 0; i < password.length; i++)
+				password[i] = shuffled[this.numHints + this.random.nextInt(shuffled.length - this.numHints)];
+
+			dataset.write(id + ";Name" + id + ";" + chars + ";" + this.passwordLength + ";" + this.hash(password));
+			for (int h = 0; h < this.numHints; h++) {
+				for (int i = 0, j = 0; i < this.alphabet.length; i++)
+					if (this.alphabet[i] != shuffled[h])
+						hint[j++] = this.alphabet[i];
+				this.shuffle(hint);
+				dataset.write(";" + this.hash(hint));
+			}
+			dataset.write('\n');
+
+			if (solutions != null)
+				solutions.write(id + ";" + new String(password, StandardCharsets.US_ASCII) + "\n");
+		}
+	}
+
+	// Fisher-Yates shuffle
+	private void shuffle(byte[] elements) {
+		for (int i = elements.length - 1; i > 0; i--) {
+			int j = this.random.nextInt(i + 1);
+			byte swap = elements[i];
+			elements[i] = elements[j];
+			elements[j] = swap;
+		}
+	}
+
+	private String hash(byte[] plaintext) {
+		return Sha256Engine.toHex(this.engine.hash(plaintext, plaintext.length));
+	}
+}
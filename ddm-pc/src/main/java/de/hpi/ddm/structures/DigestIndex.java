@@ -0,0 +1,220 @@
+package de.hpi.ddm.structures;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable index from SHA-256 digests to the IDs of the records they belong to.
+ * The digests are stored as four longs each and sorted by their unsigned byte order;
+ * the first long of every digest lives in its own array, so a lookup is a binary search
+ * over primitive longs followed by a comparison of the remaining three longs. The IDs of
+ * a digest are stored consecutively in one int array.
+ */
+public class DigestIndex implements Serializable {
+
+	private static final long serialVersionUID = -3390461236018529154L;
+
+	private static final int SUFFIX_LONGS = Sha256Engine.DIGEST_LENGTH / Long.BYTES - 1;
+
+	private final long[] prefixes;	// first eight bytes of every distinct digest, sorted unsigned
+	private final long[] suffixes;	// remaining 24 bytes of every distinct digest
+	private final int[] offsets;	// the IDs of digest i are ids[offsets[i]] to ids[offsets[i + 1] - 1]
+	private final int[] ids;
+
+	private DigestIndex(long[] prefixes, long[] suffixes, int[] offsets, int[] ids) {
+		this.prefixes = prefixes;
+		this.suffixes = suffixes;
+		this.offsets = offsets;
+		this.ids = ids;
+	}
+
+	// kryo needs a no-arg constructor to deserialize the index on remote nodes
+	private DigestIndex() {
+		this(null, null, null, null);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Retrieves the number of distinct digests in this index.
+	 * @return the number of distinct digests
+	 */
+	public int size() {
+		return this.prefixes.length;
+	}
+
+	/**
+	 * Retrieves the number of IDs in this index, i.e., the number of added digest-ID pairs.
+	 * @return the number of IDs
+	 */
+	public int numIds() {
+		return this.ids.length;
+	}
+
+	/**
+	 * Searches the slot of a digest.
+	 * @param digest the 32 byte digest to search
+	 * @return the slot of the digest or -1 if the digest is not contained
+	 */
+	public int find(byte[] digest) {
+		long prefix = readLong(digest, 0);
+
+		int low = 0;
+		int high = this.prefixes.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(this.prefixes[mid], prefix) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		// different digests may share a prefix, so compare the suffixes of all candidates
+		for (int slot = low; (slot < this.prefixes.length) && (this.prefixes[slot] == prefix); slot++)
+			if (this.suffixEquals(slot, digest))
+				return slot;
+		return -1;
+	}
+
+	/**
+	 * Tests if this index contains the digest.
+	 * @param digest the 32 byte digest to search
+	 * @return true if the digest is contained
+	 */
+	public boolean contains(byte[] digest) {
+		return this.find(digest) >= 0;
+	}
+
+	/**
+	 * Retrieves the position of the first ID of a slot.
+	 * @param slot a slot returned by {@link #find(byte[])}
+	 * @return the position of the slot's first ID
+	 */
+	public int start(int slot) {
+		return this.offsets[slot];
+	}
+
+	/**
+	 * Retrieves the position after the last ID of a slot.
+	 * @param slot a slot returned by {@link #find(byte[])}
+	 * @return the position after the slot's last ID
+	 */
+	public int end(int slot) {
+		return this.offsets[slot + 1];
+	}
+
+	/**
+	 * Retrieves the ID at the given position.
+	 * @param position a position between {@link #start(int)} and {@link #end(int)} of some slot
+	 * @return the ID at the position
+	 */
+	public int id(int position) {
+		return this.ids[position];
+	}
+
+	/**
+	 * Copies the digest of a slot into the output array.
+	 * @param slot the slot whose digest is to be copied
+	 * @param output an array of at least 32 bytes
+	 */
+	public void digest(int slot, byte[] output) {
+		writeLong(this.prefixes[slot], output, 0);
+		for (int i = 0; i < SUFFIX_LONGS; i++)
+			writeLong(this.suffixes[slot * SUFFIX_LONGS + i], output, (i + 1) * Long.BYTES);
+	}
+
+	private boolean suffixEquals(int slot, byte[] digest) {
+		for (int i = 0; i < SUFFIX_LONGS; i++)
+			if (this.suffixes[slot * SUFFIX_LONGS + i] != readLong(digest, (i + 1) * Long.BYTES))
+				return false;
+		return true;
+	}
+
+	static long readLong(byte[] bytes, int offset) {
+		long value = 0;
+		for (int i = 0; i < Long.BYTES; i++)
+			value = (value << 8) | (bytes[offset + i] & 0xffL);
+		return value;
+	}
+
+	static void writeLong(long value, byte[] bytes, int offset) {
+		for (int i = Long.BYTES - 1; i >= 0; i--) {
+			bytes[offset + i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	/**
+	 * Collects digest-ID pairs and sorts them into an immutable {@link DigestIndex}.
+	 */
+	public static class Builder {
+
+		private long[] keys = new long[16 * (SUFFIX_LONGS + 1)];
+		private int[] ids = new int[16];
+		private int size = 0;
+
+		public Builder add(String hexDigest, int id) {
+			return this.add(Sha256Engine.fromHex(hexDigest), id);
+		}
+
+		public Builder add(byte[] digest, int id) {
+			if (this.size == this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, 2 * this.size);
+				this.keys = Arrays.copyOf(this.keys, 2 * this.keys.length);
+			}
+
+			for (int i = 0; i <= SUFFIX_LONGS; i++)
+				this.keys[this.size * (SUFFIX_LONGS + 1) + i] = readLong(digest, i * Long.BYTES);
+			this.ids[this.size] = id;
+			this.size++;
+			return this;
+		}
+
+		public DigestIndex build() {
+			// sort the pair positions by digest and ID
+			Integer[] order = new Integer[this.size];
+			for (int i = 0; i < this.size; i++)
+				order[i] = i;
+			Arrays.sort(order, (a, b) -> {
+				int comparison = this.compareKeys(a, b);
+				return (comparison != 0) ? comparison : Integer.compare(this.ids[a], this.ids[b]);
+			});
+
+			int distinct = 0;
+			for (int i = 0; i < this.size; i++)
+				if ((i == 0) || (this.compareKeys(order[i - 1], order[i]) != 0))
+					distinct++;
+
+			long[] prefixes = new long[distinct];
+			long[] suffixes = new long[distinct * SUFFIX_LONGS];
+			int[] offsets = new int[distinct + 1];
+			int[] ids = new int[this.size];
+
+			int slot = -1;
+			for (int i = 0; i < this.size; i++) {
+				int pair = order[i];
+				if ((i == 0) || (this.compareKeys(order[i - 1], pair) != 0)) {
+					slot++;
+					prefixes[slot] = this.keys[pair * (SUFFIX_LONGS + 1)];
+					System.arraycopy(this.keys, pair * (SUFFIX_LONGS + 1) + 1, suffixes, slot * SUFFIX_LONGS, SUFFIX_LONGS);
+					offsets[slot] = i;
+				}
+				ids[i] = this.ids[pair];
+			}
+			offsets[distinct] = this.size;
+
+			return new DigestIndex(prefixes, suffixes, offsets, ids);
+		}
+
+		private int compareKeys(int a, int b) {
+			for (int i = 0; i <= SUFFIX_LONGS; i++) {
+				int comparison = Long.compareUnsigned(this.keys[a * (SUFFIX_LONGS + 1) + i], this.keys[b * (SUFFIX_LONGS + 1) + i]);
+				if (comparison != 0)
+					return comparison;
+			}
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package de.hpi.ddm.structures;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Extension;
+import akka.actor.ExtensionId;
+
+/**
+ * Node-local cache of the hint indexes that the master broadcasts once per batch. There
+ * is one cache per actor system, so all workers of a node share the index that was
+ * delivered to any one of them. Next to its index, every batch has a done flag that any
+ * worker of the node can raise once the master announced that all hints of the batch are
+ * resolved; running searches poll it and stop early. Only the most recently used batches are kept.
+ * The master announces every finished batch to every worker, so batches that this node never
+ * cached are remembered in a separate, larger set of done batches that cannot evict any index.
+ */
+public class HintIndexCache implements Extension {
+
+	private static final int CAPACITY = 16;
+	private static final int DONE_CAPACITY = 4096;
+
+	private static final ExtensionId<HintIndexCache> ID = new AbstractExtensionId<HintIndexCache>() {
+		@Override
+		public HintIndexCache createExtension(ExtendedActorSystem system) {
+			return new HintIndexCache();
+		}
+	};
+
+	public static HintIndexCache get(ActorSystem system) {
+		return ID.get(system);
+	}
+
+	private static class Batch {
+		private DigestIndex index;
+		private final AtomicBoolean done = new AtomicBoolean(false);
+	}
+
+	private final Map<Integer, Batch> batches = new LinkedHashMap<Integer, Batch>(CAPACITY, 0.75f, true) {
+		private static final long serialVersionUID = 5125336616519786433L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Batch> eldest) {
+			return this.size() > CAPACITY;
+		}
+	};
+
+	private final Set<Integer> doneBatches = Collections.newSetFromMap(new LinkedHashMap<Integer, Boolean>(DONE_CAPACITY, 0.75f, true) {
+		private static final long serialVersionUID = -2380618834916322785L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+			return this.size() > DONE_CAPACITY;
+		}
+	});
+
+	/**
+	 * Retrieves the hint index of a batch.
+	 * @param batchId the ID of the batch
+	 * @return the batch's index or null if it was not delivered to this node (or was evicted)
+	 */
+	public synchronized DigestIndex get(int batchId) {
+		Batch batch = this.batches.get(batchId);
+		return (batch == null) ? null : batch.index;
+	}
+
+	/**
+	 * Stores the hint index of a batch.
+	 * @param batchId the ID of the batch
+	 * @param index the batch's index
+	 */
+	public synchronized void put(int batchId, DigestIndex index) {
+		Batch batch = this.batches.computeIfAbsent(batchId, id -> new Batch());
+		batch.index = index;
+		if (this.doneBatches.contains(batchId))
+			batch.done.set(true);
+	}
+
+	/**
+	 * Checks whether all hints of a batch are resolved.
+	 * @param batchId the ID of the batch
+	 * @return true if the batch was marked as done
+	 */
+	public synchronized boolean isDone(int batchId) {
+		return this.doneFlag(batchId).get();
+	}
+
+	/**
+	 * Retrieves the done flag of a batch that searches over the batch's hints should poll.
+	 * @param batchId the ID of the batch
+	 * @return the flag that is raised once all hints of the batch are resolved; a detached copy if the batch is not cached
+	 */
+	public synchronized AtomicBoolean doneFlag(int batchId) {
+		Batch batch = this.batches.get(batchId);
+		return (batch == null) ? new AtomicBoolean(this.doneBatches.contains(batchId)) : batch.done;
+	}
+
+	/**
+	 * Marks all hints of a batch as resolved.
+	 * @param batchId the ID of the batch
+	 */
+	public synchronized void markDone(int batchId) {
+		// only cached batches get their flag raised, so that the announcements of foreign batches cannot evict indexes
+		this.doneBatches.add(batchId);
+		Batch batch = this.batches.get(batchId);
+		if (batch != null)
+			batch.done.set(true);
+	}
+}
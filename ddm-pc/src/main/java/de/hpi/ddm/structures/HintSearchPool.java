@@ -0,0 +1,78 @@
+package de.hpi.ddm.structures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import com.typesafe.config.Config;
+
+import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Extension;
+import akka.actor.ExtensionId;
+
+/**
+ * Node-local fork/join pool that runs parallel hint searches. There is one pool per actor
+ * system, so the searches of all workers of a node share its cores. Akka's fork-join-executor
+ * is no java.util.concurrent.ForkJoinPool, and a PermutationSearch that is started on it forks
+ * its subtasks into the common pool; this pool is a java.util.concurrent one, so that the
+ * subtasks stay in it and off the actor dispatchers. It is sized like a fork-join-executor by
+ * the hint-search-pool section of the configuration and shut down with its actor system.
+ */
+public class HintSearchPool implements Extension {
+
+	public static final String CONFIG_PATH = "hint-search-pool";
+
+	private static final ExtensionId<HintSearchPool> ID = new AbstractExtensionId<HintSearchPool>() {
+		@Override
+		public HintSearchPool createExtension(ExtendedActorSystem system) {
+			HintSearchPool pool = new HintSearchPool(system.settings().config().getConfig(CONFIG_PATH));
+			system.registerOnTermination(pool::shutdown);
+			return pool;
+		}
+	};
+
+	public static HintSearchPool get(ActorSystem system) {
+		return ID.get(system);
+	}
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * @param config the sizing of the pool with the keys parallelism-min, parallelism-factor and parallelism-max
+	 */
+	public HintSearchPool(Config config) {
+		int parallelism = (int) Math.ceil(Runtime.getRuntime().availableProcessors() * config.getDouble("parallelism-factor"));
+		parallelism = Math.min(Math.max(parallelism, config.getInt("parallelism-min")), config.getInt("parallelism-max"));
+
+		this.pool = new ForkJoinPool(parallelism, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(CONFIG_PATH + "-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * Starts a search in this pool, so that it forks its subtasks into this pool as well.
+	 * @param search the search to run
+	 * @return the number of permutations that the search hashed, once it is done
+	 */
+	public CompletableFuture<Long> search(PermutationSearch search) {
+		return CompletableFuture.supplyAsync(search::invoke, this.pool);
+	}
+
+	/**
+	 * @return the number of threads that this pool runs searches with
+	 */
+	public int parallelism() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * Stops the threads of this pool and cancels the searches that still run in it.
+	 */
+	public void shutdown() {
+		this.pool.shutdownNow();
+	}
+}
@@ -0,0 +1,165 @@
+package de.hpi.ddm.structures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.hpi.ddm.configuration.RecordReader;
+
+/**
+ * Reads a separator-delimited dataset file through memory mappings instead of a Reader
+ * and opencsv. The file is mapped in record-aligned regions of at most 1 GB, and the
+ * records are split at the separator and line break bytes of the mapping; only the values
+ * themselves are decoded into Strings. Quoting and escaping are not supported; values
+ * must not contain the separator or line breaks.
+ */
+public class MappedDataset implements RecordReader {
+
+	private static final long MAX_REGION_BYTES = 1L << 30;	// a mapping must stay below 2 GB; smaller mappings also let the reading start earlier
+	private static final int ALIGNMENT_BUFFER_SIZE = 4096;
+
+	private final Path path;
+	private final Charset charset;
+	private final byte separator;
+	private final boolean ignoreLeadingWhitespace;
+	private final long fileSize;
+
+	private MappedByteBuffer region = null;	// the mapped region that is being read
+	private long regionEnd;					// the offset of the byte after the mapped region in the file
+	private int position = 0;				// the position of the next record in the mapped region
+	private final List<String> values = new ArrayList<>();
+	private byte[] value = new byte[128];	// the bytes of the value that is being decoded
+
+	private MappedDataset(Path path, Charset charset, byte separator, boolean hasHeader, boolean ignoreLeadingWhitespace) throws IOException {
+		this.path = path;
+		this.charset = charset;
+		this.separator = separator;
+		this.ignoreLeadingWhitespace = ignoreLeadingWhitespace;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			this.fileSize = channel.size();
+			this.regionEnd = hasHeader ? alignToRecord(channel, 1, this.fileSize) : 0;
+		}
+	}
+
+	/**
+	 * Opens a dataset file for mapped reading.
+	 * @param path the dataset file
+	 * @param charset the charset of the dataset; it must encode every character in a single byte or be UTF-8, whose multi-byte characters never contain ASCII bytes
+	 * @param separator the value separator
+	 * @param hasHeader true if the first line is a header that is to be skipped
+	 * @param ignoreLeadingWhitespace true if spaces and tabs preceding a value are to be dropped
+	 * @return the opened dataset
+	 * @throws IOException if the file cannot be read
+	 */
+	public static MappedDataset open(Path path, Charset charset, char separator, boolean hasHeader, boolean ignoreLeadingWhitespace) throws IOException {
+		if (separator > 0x7f)
+			throw new IllegalArgumentException("Only ASCII separators are supported, but found '" + separator + "'");
+		// the separator and line break bytes must not occur inside the bytes of another character
+		if (!charset.equals(StandardCharsets.UTF_8) && (charset.newEncoder().maxBytesPerChar() > 1))
+			throw new IllegalArgumentException("Only single-byte charsets and UTF-8 can be memory-mapped, but found " + charset);
+
+		return new MappedDataset(path, charset, (byte) separator, hasHeader, ignoreLeadingWhitespace);
+	}
+
+	// Finds the start of the first record that begins at or after the position
+	private static long alignToRecord(FileChannel channel, long position, long fileSize) throws IOException {
+		if (position <= 0)
+			return 0;
+
+		// a record starts at the position if the preceding byte ends a line
+		ByteBuffer buffer = ByteBuffer.allocate(ALIGNMENT_BUFFER_SIZE);
+		long offset = position - 1;
+		while (offset < fileSize) {
+			buffer.clear();
+			int read = channel.read(buffer, offset);
+			if (read <= 0)
+				break;
+			for (int i = 0; i < read; i++)
+				if (buffer.get(i) == '\n')
+					return offset + i + 1;
+			offset += read;
+		}
+		return fileSize;
+	}
+
+	// Maps the records that follow the current region
+	private void mapNextRegion() throws IOException {
+		try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+			long start = this.regionEnd;
+			long end = (this.fileSize - start > MAX_REGION_BYTES) ? alignToRecord(channel, start + MAX_REGION_BYTES, this.fileSize) : this.fileSize;
+			this.region = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			this.regionEnd = end;
+			this.position = 0;
+		}
+	}
+
+	// Skips the line breaks of empty lines and tells whether the region holds another record
+	private boolean hasRecord() {
+		int limit = this.region.limit();
+		while ((this.position < limit) && ((this.region.get(this.position) == '\n') || (this.region.get(this.position) == '\r')))
+			this.position++;
+		return this.position < limit;
+	}
+
+	@Override
+	public String[] readNext() throws IOException {
+		while ((this.region == null) || !this.hasRecord()) {
+			if (this.regionEnd >= this.fileSize)
+				return null;
+			this.mapNextRegion();
+		}
+
+		this.values.clear();
+		int limit = this.region.limit();
+		int valueStart = this.position;
+		while (true) {
+			byte b = (this.position < limit) ? this.region.get(this.position) : (byte) '\n';
+			if ((b == this.separator) || (b == '\n')) {
+				int valueEnd = this.position;
+				if ((b == '\n') && (valueEnd > valueStart) && (this.region.get(valueEnd - 1) == '\r'))
+					valueEnd--;
+				this.values.add(this.decode(valueStart, valueEnd));
+
+				this.position++;
+				if (b == '\n')
+					return this.values.toArray(new String[this.values.size()]);
+				valueStart = this.position;
+			} else {
+				this.position++;
+			}
+		}
+	}
+
+	// Decodes a value of the mapped region; empty values are null, as with opencsv
+	private String decode(int start, int end) {
+		if (this.ignoreLeadingWhitespace)
+			while ((start < end) && ((this.region.get(start) == ' ') || (this.region.get(start) == '\t')))
+				start++;
+
+		int length = end - start;
+		if (length == 0)
+			return null;
+
+		if (length > this.value.length)
+			this.value = Arrays.copyOf(this.value, Math.max(length, 2 * this.value.length));
+		for (int i = 0; i < length; i++)
+			this.value[i] = this.region.get(start + i);
+		return new String(this.value, 0, length, this.charset);
+	}
+
+	@Override
+	public void close() {
+		// the mapping is released with its buffer
+		this.region = null;
+		this.regionEnd = this.fileSize;
+	}
+}
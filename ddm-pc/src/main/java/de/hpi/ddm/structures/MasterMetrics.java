@@ -0,0 +1,205 @@
+package de.hpi.ddm.structures;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a run that the master records while it schedules the work: the hashes that
+ * the workers computed, split into hint permutations and password candidates, every
+ * worker's hash rate while it was busy, the number of queued tasks by kind, the number of
+ * busy and idle workers, and the latency of every batch from its arrival at the master
+ * until all of its passwords are cracked, and the number of results that it handed to the collector. The master is the only writer; JMX clients read
+ * the metrics concurrently, which is why all counters are thread-safe.
+ */
+public class MasterMetrics implements MasterMetricsMBean {
+
+	private static class WorkerRate {
+		private long hashes;
+		private long nanos;
+	}
+
+	private volatile long startTime = System.nanoTime();
+	private final LongAdder permutations = new LongAdder();
+	private final LongAdder candidates = new LongAdder();
+	private final LongAdder results = new LongAdder();
+	private final Map<String, WorkerRate> workerRates = new ConcurrentHashMap<>();
+
+	private volatile int queuedHintTasks;
+	private volatile int queuedPasswordTasks;
+	private volatile int busyWorkers;
+	private volatile int idleWorkers;
+
+	private volatile long completedBatches;
+	private volatile long totalBatchLatency;
+	private volatile long maxBatchLatency;
+
+	/**
+	 * Restarts the clock of the hash rate, e.g., once the discovery actually starts.
+	 */
+	public void start() {
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * Records a completed hint task.
+	 * @param worker the worker that executed the task
+	 * @param permutations the number of permutations that the worker hashed
+	 * @param nanos the time that the worker took
+	 */
+	public void recordHints(String worker, long permutations, long nanos) {
+		this.permutations.add(permutations);
+		this.recordRate(worker, permutations, nanos);
+	}
+
+	/**
+	 * Records a completed password task.
+	 * @param worker the worker that executed the task
+	 * @param candidates the number of candidates that the worker hashed
+	 * @param nanos the time that the worker took
+	 */
+	public void recordPasswords(String worker, long candidates, long nanos) {
+		this.candidates.add(candidates);
+		this.recordRate(worker, candidates, nanos);
+	}
+
+	private void recordRate(String worker, long hashes, long nanos) {
+		WorkerRate rate = this.workerRates.computeIfAbsent(worker, key -> new WorkerRate());
+		synchronized (rate) {
+			rate.hashes += hashes;
+			rate.nanos += nanos;
+		}
+	}
+
+	/**
+	 * Records a batch whose passwords are all cracked.
+	 * @param latency the nanoseconds since the batch arrived
+	 */
+	public synchronized void recordBatch(long latency) {
+		this.completedBatches++;
+		this.totalBatchLatency += latency;
+		this.maxBatchLatency = Math.max(this.maxBatchLatency, latency);
+	}
+
+	/**
+	 * Records a cracked password that was handed to the collector.
+	 */
+	public void recordResult() {
+		this.results.increment();
+	}
+
+	/**
+	 * Updates the current state of the scheduler.
+	 * @param queuedHintTasks the number of hint tasks that wait for a worker
+	 * @param queuedPasswordTasks the number of password tasks that wait for a worker
+	 * @param busyWorkers the number of workers with outstanding tasks
+	 * @param idleWorkers the number of workers without outstanding tasks
+	 */
+	public void updateScheduler(int queuedHintTasks, int queuedPasswordTasks, int busyWorkers, int idleWorkers) {
+		this.queuedHintTasks = queuedHintTasks;
+		this.queuedPasswordTasks = queuedPasswordTasks;
+		this.busyWorkers = busyWorkers;
+		this.idleWorkers = idleWorkers;
+	}
+
+	@Override
+	public long getHashes() {
+		return this.getPermutationsTested() + this.getPasswordCandidatesTested();
+	}
+
+	@Override
+	public double getHashesPerSecond() {
+		return this.getHashes() / ((System.nanoTime() - this.startTime) / 1e9);
+	}
+
+	@Override
+	public long getResults() {
+		return this.results.sum();
+	}
+
+	@Override
+	public double getResultsPerSecond() {
+		return this.getResults() / ((System.nanoTime() - this.startTime) / 1e9);
+	}
+
+	@Override
+	public long getPermutationsTested() {
+		return this.permutations.sum();
+	}
+
+	@Override
+	public long getPasswordCandidatesTested() {
+		return this.candidates.sum();
+	}
+
+	@Override
+	public int getQueuedHintTasks() {
+		return this.queuedHintTasks;
+	}
+
+	@Override
+	public int getQueuedPasswordTasks() {
+		return this.queuedPasswordTasks;
+	}
+
+	@Override
+	public int getBusyWorkers() {
+		return this.busyWorkers;
+	}
+
+	@Override
+	public int getIdleWorkers() {
+		return this.idleWorkers;
+	}
+
+	@Override
+	public long getCompletedBatches() {
+		return this.completedBatches;
+	}
+
+	@Override
+	public synchronized double getAverageBatchLatencyMillis() {
+		return (this.completedBatches == 0) ? 0 : this.totalBatchLatency / 1e6 / this.completedBatches;
+	}
+
+	@Override
+	public double getMaxBatchLatencyMillis() {
+		return this.maxBatchLatency / 1e6;
+	}
+
+	@Override
+	public String[] getWorkerHashRates() {
+		return this.workerRates.entrySet().stream()
+				.sorted(Map.Entry.comparingByKey())
+				.map(entry -> entry.getKey() + "=" + String.format("%.0f", this.hashRate(entry.getValue())))
+				.toArray(String[]::new);
+	}
+
+	private double hashRate(WorkerRate rate) {
+		synchronized (rate) {
+			return (rate.nanos == 0) ? 0 : rate.hashes / (rate.nanos / 1e9);
+		}
+	}
+
+	/**
+	 * @return a one-line summary of all metrics
+	 */
+	public String summary() {
+		double min = Double.MAX_VALUE, max = 0, sum = 0;
+		for (WorkerRate rate : this.workerRates.values()) {
+			double hashRate = this.hashRate(rate);
+			min = Math.min(min, hashRate);
+			max = Math.max(max, hashRate);
+			sum += hashRate;
+		}
+		int workers = this.workerRates.size();
+
+		return String.format("%d hashes (%.0f per second): %d permutations, %d candidates | queued: %d hint, %d password tasks | workers: %d busy, %d idle, "
+				+ "%.0f/%.0f/%.0f min/avg/max hashes per second | batches: %d done, %.1f/%.1f avg/max ms | results: %d (%.1f per second)",
+				this.getHashes(), this.getHashesPerSecond(), this.getPermutationsTested(), this.getPasswordCandidatesTested(),
+				this.queuedHintTasks, this.queuedPasswordTasks, this.busyWorkers, this.idleWorkers,
+				(workers == 0) ? 0 : min, (workers == 0) ? 0 : sum / workers, max,
+				this.completedBatches, this.getAverageBatchLatencyMillis(), this.getMaxBatchLatencyMillis(),
+				this.getResults(), this.getResultsPerSecond());
+	}
+}
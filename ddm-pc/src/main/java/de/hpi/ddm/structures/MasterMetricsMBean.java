@@ -0,0 +1,35 @@
+package de.hpi.ddm.structures;
+
+/**
+ * The JMX view of the {@link MasterMetrics}.
+ */
+public interface MasterMetricsMBean {
+
+	long getHashes();
+
+	double getHashesPerSecond();
+
+	long getResults();
+
+	double getResultsPerSecond();
+
+	long getPermutationsTested();
+
+	long getPasswordCandidatesTested();
+
+	int getQueuedHintTasks();
+
+	int getQueuedPasswordTasks();
+
+	int getBusyWorkers();
+
+	int getIdleWorkers();
+
+	long getCompletedBatches();
+
+	double getAverageBatchLatencyMillis();
+
+	double getMaxBatchLatencyMillis();
+
+	String[] getWorkerHashRates();
+}
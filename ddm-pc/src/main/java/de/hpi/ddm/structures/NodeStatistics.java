@@ -0,0 +1,45 @@
+package de.hpi.ddm.structures;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Extension;
+import akka.actor.ExtensionId;
+
+/**
+ * Node-local counters of the work that the workers of an actor system did. There is one
+ * instance per actor system, so the counts of all workers of a node add up, including the
+ * fork/join tasks of parallel hint searches that update them concurrently.
+ */
+public class NodeStatistics implements Extension {
+
+	private static final ExtensionId<NodeStatistics> ID = new AbstractExtensionId<NodeStatistics>() {
+		@Override
+		public NodeStatistics createExtension(ExtendedActorSystem system) {
+			return new NodeStatistics();
+		}
+	};
+
+	public static NodeStatistics get(ActorSystem system) {
+		return ID.get(system);
+	}
+
+	private final LongAdder hashes = new LongAdder();
+
+	/**
+	 * Counts computed digests.
+	 * @param count the number of digests
+	 */
+	public void addHashes(long count) {
+		this.hashes.add(count);
+	}
+
+	/**
+	 * @return the number of digests that the workers of this node computed so far
+	 */
+	public long hashes() {
+		return this.hashes.sum();
+	}
+}
@@ -0,0 +1,53 @@
+package de.hpi.ddm.structures;
+
+/**
+ * Enumerates all strings of a fixed length over an alphabet in place, like the wheels of
+ * an odometer: the last position turns fastest and carries over into its predecessor. The
+ * candidate buffer is reused for every string, so the enumeration creates no garbage.
+ */
+public class Odometer {
+
+	private final byte[] alphabet;
+	private final int[] digits;
+	private final byte[] candidate;
+
+	/**
+	 * Creates an odometer that starts at the string that repeats the alphabet's first element.
+	 * @param alphabet the elements to combine
+	 * @param length the length of the strings
+	 */
+	public Odometer(byte[] alphabet, int length) {
+		if (alphabet.length == 0)
+			throw new IllegalArgumentException("Cannot enumerate strings over an empty alphabet");
+
+		this.alphabet = alphabet;
+		this.digits = new int[length];
+		this.candidate = new byte[length];
+		for (int i = 0; i < length; i++)
+			this.candidate[i] = alphabet[0];
+	}
+
+	/**
+	 * Retrieves the current string.
+	 * @return the candidate buffer; it is overwritten by {@link #next()}
+	 */
+	public byte[] candidate() {
+		return this.candidate;
+	}
+
+	/**
+	 * Advances to the next string.
+	 * @return false if all strings have been enumerated
+	 */
+	public boolean next() {
+		for (int i = this.digits.length - 1; i >= 0; i--) {
+			if (++this.digits[i] < this.alphabet.length) {
+				this.candidate[i] = this.alphabet[this.digits[i]];
+				return true;
+			}
+			this.digits[i] = 0;
+			this.candidate[i] = this.alphabet[0];
+		}
+		return false;
+	}
+}
@@ -0,0 +1,94 @@
+package de.hpi.ddm.structures;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hashes the permutations with lexicographic ranks [from, to) of a sequence and reports the
+ * IDs of all hints that match one of them together with the matching permutation. Ranges larger than the split size are halved
+ * into subtasks that are forked into the current fork/join pool; every leaf unranks its
+ * first permutation and steps through the rest in place. With an unbounded split size the
+ * search runs sequentially on the calling thread. A search stops early once its done flag
+ * is raised, i.e., when there is nothing left to find. The search yields the number of
+ * permutations that it hashed.
+ */
+public class PermutationSearch extends RecursiveTask<Long> {
+
+	private static final long serialVersionUID = -2526778837617045562L;
+
+	private static final int DONE_CHECK_INTERVAL = 1024;	// permutations between two polls of the done flag
+
+	/**
+	 * Receives the hints that a search finds.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+
+		/**
+		 * @param id the ID of the hint
+		 * @param permutation the permutation that matches the hint; the buffer is reused after the call returns
+		 */
+		void found(int id, byte[] permutation);
+	}
+
+	private final byte[] sequence;
+	private final long from;
+	private final long to;
+	private final long splitSize;
+	private final DigestIndex hints;
+	private final AtomicBoolean done;
+	private final Listener listener;
+
+	/**
+	 * @param sequence the distinct elements to permute
+	 * @param from the rank of the first permutation to test
+	 * @param to the rank after the last permutation to test
+	 * @param splitSize the largest range that is not split into subtasks; Long.MAX_VALUE searches sequentially
+	 * @param hints the hint digests to compare the permutations with
+	 * @param done a flag that stops the search when raised
+	 * @param listener receives every hint that matches a permutation; called concurrently if the range gets split
+	 */
+	public PermutationSearch(byte[] sequence, long from, long to, long splitSize, DigestIndex hints, AtomicBoolean done, Listener listener) {
+		this.sequence = sequence;
+		this.from = from;
+		this.to = to;
+		this.splitSize = splitSize;
+		this.hints = hints;
+		this.done = done;
+		this.listener = listener;
+	}
+
+	@Override
+	protected Long compute() {
+		if (this.done.get())
+			return 0L;
+
+		if (this.to - this.from > this.splitSize) {
+			long middle = this.from + (this.to - this.from) / 2;
+			PermutationSearch left = new PermutationSearch(this.sequence, this.from, middle, this.splitSize, this.hints, this.done, this.listener);
+			PermutationSearch right = new PermutationSearch(this.sequence, middle, this.to, this.splitSize, this.hints, this.done, this.listener);
+			invokeAll(left, right);
+			return left.join() + right.join();
+		}
+
+		if (this.from >= this.to)
+			return 0L;
+
+		Sha256Engine engine = Sha256Engine.get();
+		byte[] permutation = new byte[this.sequence.length];
+		Permutations.unrank(this.sequence, this.from, permutation);
+
+		for (long rank = this.from; rank < this.to; rank++) {
+			if (((rank - this.from) % DONE_CHECK_INTERVAL == 0) && this.done.get())
+				return rank - this.from;
+
+			int slot = this.hints.find(engine.hash(permutation, permutation.length));
+			if (slot >= 0)
+				for (int i = this.hints.start(slot); i < this.hints.end(slot); i++)
+					this.listener.found(this.hints.id(i), permutation);
+
+			Permutations.next(permutation);
+		}
+		return this.to - this.from;
+	}
+}
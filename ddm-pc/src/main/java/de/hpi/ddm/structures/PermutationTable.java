@@ -0,0 +1,229 @@
+package de.hpi.ddm.structures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A precomputed table of the SHA-256 digests of all hints over an alphabet, i.e., of all
+ * permutations of the alphabet that miss exactly one of its n chars. Every permutation is
+ * stored as one long entry: its digest's leading bits followed by its global rank, which
+ * encodes the missing char and the permutation's lexicographic rank. The entries are
+ * sorted unsigned and sharded by their top bits into memory-mapped files, so resolving a
+ * batch of hints is a merge-join of the hints' sorted {@link DigestIndex} against the
+ * shards. Because the entries keep only part of the digest, every candidate is verified by
+ * rehashing its permutation.
+ */
+public class PermutationTable {
+
+	private static final int MAX_SHARD_ENTRIES = 1 << 26;	// 512 MB per shard, which must be sorted in memory and mapped at once
+	private static final int MIN_PREFIX_BITS = 24;			// fewer digest bits let too many candidates through to the verification
+
+	private final byte[] alphabet;
+	private final byte[][] sequences;	// the alphabet without its i-th char
+	private final long permutations;	// the number of permutations per missing char
+	private final int rankBits;
+	private final int shardBits;
+	private final LongBuffer[] shards;
+
+	private PermutationTable(String alphabet, LongBuffer[] shards) {
+		this.alphabet = sortedAlphabet(alphabet);
+		this.sequences = sequences(this.alphabet);
+		this.permutations = Permutations.factorial(this.alphabet.length - 1);
+		this.rankBits = rankBits(this.alphabet.length);
+		this.shardBits = Integer.numberOfTrailingZeros(shards.length);
+		this.shards = shards;
+	}
+
+	/**
+	 * Opens the table of an alphabet.
+	 * @param directory the directory that holds the tables
+	 * @param alphabet the chars of the passwords, in any order
+	 * @return the table or null if no table was precomputed for the alphabet
+	 * @throws IOException if the table files cannot be mapped
+	 */
+	public static PermutationTable open(Path directory, String alphabet) throws IOException {
+		int numShards = 0;
+		while (Files.exists(shardPath(directory, alphabet, numShards, false)))
+			numShards++;
+		if (numShards == 0)
+			return null;
+		if (Integer.bitCount(numShards) != 1)
+			throw new IOException("The table of " + alphabet + " has " + numShards + " shards, but needs a power of two");
+
+		LongBuffer[] shards = new LongBuffer[numShards];
+		for (int i = 0; i < numShards; i++) {
+			try (FileChannel channel = FileChannel.open(shardPath(directory, alphabet, i, false), StandardOpenOption.READ)) {
+				shards[i] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asLongBuffer();
+			}
+		}
+		return new PermutationTable(alphabet, shards);
+	}
+
+	/**
+	 * Hashes all hints over an alphabet and writes their sorted table.
+	 * @param directory the directory that holds the tables
+	 * @param alphabet the chars of the passwords, in any order
+	 * @return the number of entries in the table
+	 * @throws IOException if the table files cannot be written
+	 */
+	public static long build(Path directory, String alphabet) throws IOException {
+		byte[] chars = sortedAlphabet(alphabet);
+		long entries = Permutations.factorial(chars.length);
+		int rankBits = rankBits(chars.length);
+		int shardBits = 0;
+		while ((entries >>> shardBits) > MAX_SHARD_ENTRIES)
+			shardBits++;
+		int numShards = 1 << shardBits;
+
+		Files.createDirectories(directory);
+
+		// distribute the unsorted entries into one file per shard
+		DataOutputStream[] outputs = new DataOutputStream[numShards];
+		int[] sizes = new int[numShards];
+		try {
+			for (int i = 0; i < numShards; i++)
+				outputs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(shardPath(directory, alphabet, i, true))));
+
+			Sha256Engine engine = Sha256Engine.get();
+			byte[][] sequences = sequences(chars);
+			long permutations = Permutations.factorial(chars.length - 1);
+			for (int missing = 0; missing < chars.length; missing++) {
+				byte[] permutation = sequences[missing].clone();
+				long rank = missing * permutations;
+				do {
+					long entry = entry(engine.hash(permutation, permutation.length), rank++, rankBits);
+					int shard = shard(entry, shardBits);
+					outputs[shard].writeLong(entry);
+					sizes[shard]++;
+				} while (Permutations.next(permutation));
+			}
+		} finally {
+			for (DataOutputStream output : outputs)
+				if (output != null)
+					output.close();
+		}
+
+		// sort every shard on its own; flipping the sign bit lets the signed sort order the entries unsigned
+		for (int i = 0; i < numShards; i++) {
+			Path unsorted = shardPath(directory, alphabet, i, true);
+			long[] shard = new long[sizes[i]];
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(unsorted)))) {
+				for (int j = 0; j < shard.length; j++)
+					shard[j] = input.readLong() ^ Long.MIN_VALUE;
+			}
+
+			Arrays.parallelSort(shard);
+
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(shardPath(directory, alphabet, i, false))))) {
+				for (long entry : shard)
+					output.writeLong(entry ^ Long.MIN_VALUE);
+			}
+			Files.delete(unsorted);
+		}
+		return entries;
+	}
+
+	/**
+	 * Finds all hints of an index in the table.
+	 * @param hints the hints to resolve
+	 * @param listener receives the ID of every found hint and its permutation
+	 */
+	public void join(DigestIndex hints, PermutationSearch.Listener listener) {
+		Sha256Engine engine = Sha256Engine.get();
+		byte[] digest = new byte[Sha256Engine.DIGEST_LENGTH];
+		byte[] permutation = new byte[this.alphabet.length - 1];
+		long rankMask = (1L << this.rankBits) - 1;
+
+		// both sides are sorted, so the position in the current shard only moves forward
+		int shard = -1;
+		int position = 0;
+		for (int slot = 0; slot < hints.size(); slot++) {
+			hints.digest(slot, digest);
+			long prefix = DigestIndex.readLong(digest, 0) >>> this.rankBits;
+
+			int hintShard = shard(prefix << this.rankBits, this.shardBits);
+			if (hintShard != shard) {
+				shard = hintShard;
+				position = 0;
+			}
+			LongBuffer entries = this.shards[shard];
+			position = this.seek(entries, position, prefix);
+
+			for (int i = position; (i < entries.limit()) && ((entries.get(i) >>> this.rankBits) == prefix); i++) {
+				long rank = entries.get(i) & rankMask;
+				Permutations.unrank(this.sequences[(int) (rank / this.permutations)], rank % this.permutations, permutation);
+				if (!Arrays.equals(engine.hash(permutation, permutation.length), digest))
+					continue;
+
+				for (int j = hints.start(slot); j < hints.end(slot); j++)
+					listener.found(hints.id(j), permutation);
+			}
+		}
+	}
+
+	// Finds the first entry at or after the position whose digest bits are not smaller than the prefix, galloping ahead and then bisecting
+	private int seek(LongBuffer entries, int position, long prefix) {
+		int low = position;
+		int step = 1;
+		while ((low + step < entries.limit()) && (Long.compareUnsigned(entries.get(low + step) >>> this.rankBits, prefix) < 0)) {
+			low += step;
+			step *= 2;
+		}
+
+		int high = Math.min(low + step, entries.limit());
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(entries.get(mid) >>> this.rankBits, prefix) < 0)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private static long entry(byte[] digest, long rank, int rankBits) {
+		return ((DigestIndex.readLong(digest, 0) >>> rankBits) << rankBits) | rank;
+	}
+
+	private static int shard(long entry, int shardBits) {
+		return (shardBits == 0) ? 0 : (int) (entry >>> (Long.SIZE - shardBits));
+	}
+
+	private static int rankBits(int numChars) {
+		int rankBits = Long.SIZE - Long.numberOfLeadingZeros(Permutations.factorial(numChars) - 1);
+		if (Long.SIZE - rankBits < MIN_PREFIX_BITS)
+			throw new IllegalArgumentException("Alphabets of " + numChars + " chars are too large for a permutation table");
+		return rankBits;
+	}
+
+	private static byte[] sortedAlphabet(String alphabet) {
+		byte[] chars = Sha256Engine.toBytes(alphabet);
+		Arrays.sort(chars);
+		if (chars.length < 2)
+			throw new IllegalArgumentException("A permutation table needs an alphabet of at least two chars");
+		return chars;
+	}
+
+	private static byte[][] sequences(byte[] alphabet) {
+		byte[][] sequences = new byte[alphabet.length][alphabet.length - 1];
+		for (int i = 0; i < alphabet.length; i++)
+			for (int j = 0, k = 0; j < alphabet.length; j++)
+				if (j != i)
+					sequences[i][k++] = alphabet[j];
+		return sequences;
+	}
+
+	private static Path shardPath(Path directory, String alphabet, int shard, boolean unsorted) {
+		return directory.resolve(new String(sortedAlphabet(alphabet), StandardCharsets.US_ASCII) + "-" + shard + (unsorted ? ".unsorted" : ".table"));
+	}
+}
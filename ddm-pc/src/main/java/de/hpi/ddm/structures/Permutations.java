@@ -0,0 +1,80 @@
+package de.hpi.ddm.structures;
+
+import java.util.Arrays;
+
+/**
+ * Ranking arithmetic for the lexicographic order of the permutations of distinct elements.
+ * Rank 0 is the permutation with ascending elements, rank n! - 1 the one with descending
+ * elements, so any rank range [from, to) can be enumerated by unranking from and then
+ * stepping with {@link #next(byte[])}.
+ */
+public class Permutations {
+
+	private static final int MAX_ELEMENTS = 20;	// 21! overflows a long
+
+	/**
+	 * Calculates n!.
+	 * @param n a number between 0 and 20
+	 * @return the number of permutations of n distinct elements
+	 */
+	public static long factorial(int n) {
+		if ((n < 0) || (n > MAX_ELEMENTS))
+			throw new IllegalArgumentException("Cannot rank permutations of " + n + " elements");
+
+		long factorial = 1;
+		for (int i = 2; i <= n; i++)
+			factorial *= i;
+		return factorial;
+	}
+
+	/**
+	 * Writes the permutation with the given lexicographic rank into the output array.
+	 * @param elements the distinct elements to permute, in any order
+	 * @param rank a rank between 0 and elements.length! - 1
+	 * @param output an array of at least elements.length bytes
+	 */
+	public static void unrank(byte[] elements, long rank, byte[] output) {
+		byte[] remaining = elements.clone();
+		Arrays.sort(remaining);
+
+		// decode the rank into its factorial number system digits; each digit picks one of the remaining elements
+		int left = remaining.length;
+		for (int i = 0; i < elements.length; i++) {
+			long block = factorial(left - 1);
+			int digit = (int) (rank / block);
+			rank %= block;
+
+			output[i] = remaining[digit];
+			System.arraycopy(remaining, digit + 1, remaining, digit, left - digit - 1);
+			left--;
+		}
+	}
+
+	/**
+	 * Rearranges the permutation into its lexicographic successor in place.
+	 * @param a the permutation to advance
+	 * @return false if a was the last permutation; it is then left unchanged
+	 */
+	public static boolean next(byte[] a) {
+		int pivot = a.length - 2;
+		while ((pivot >= 0) && (a[pivot] >= a[pivot + 1]))
+			pivot--;
+		if (pivot < 0)
+			return false;
+
+		int successor = a.length - 1;
+		while (a[successor] <= a[pivot])
+			successor--;
+		swap(a, pivot, successor);
+
+		for (int i = pivot + 1, j = a.length - 1; i < j; i++, j--)
+			swap(a, i, j);
+		return true;
+	}
+
+	private static void swap(byte[] a, int i, int j) {
+		byte temp = a[i];
+		a[i] = a[j];
+		a[j] = temp;
+	}
+}
@@ -0,0 +1,117 @@
+package de.hpi.ddm.structures;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Allocation-free SHA-256 hashing for the cracking kernels. An engine owns a
+ * MessageDigest and a 32 byte output buffer that are reused for every
+ * candidate, so hashing a candidate creates no garbage. Engines are not
+ * thread-safe; use {@link #get()} to obtain the engine of the current thread.
+ */
+public class Sha256Engine {
+
+	public static final int DIGEST_LENGTH = 32;
+
+	private static final ThreadLocal<Sha256Engine> engines = ThreadLocal.withInitial(Sha256Engine::new);
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+	private final byte[] output = new byte[DIGEST_LENGTH];
+
+	public Sha256Engine() {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Retrieves the engine that is bound to the current thread.
+	 * @return the engine of the current thread
+	 */
+	public static Sha256Engine get() {
+		return engines.get();
+	}
+
+	/**
+	 * Hashes the first length bytes of the input.
+	 * @param input the candidate bytes
+	 * @param length the number of bytes to hash
+	 * @return the digest; the array is owned by this engine and overwritten by the next call
+	 */
+	public byte[] hash(byte[] input, int length) {
+		this.digest.update(input, 0, length);
+		try {
+			this.digest.digest(this.output, 0, DIGEST_LENGTH);
+		} catch (DigestException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+		return this.output;
+	}
+
+	/**
+	 * Hashes the input and compares the result against the target digest.
+	 * @param input the candidate bytes
+	 * @param length the number of bytes to hash
+	 * @param target the 32 byte digest to compare with
+	 * @return true if the candidate hashes to the target
+	 */
+	public boolean matches(byte[] input, int length, byte[] target) {
+		byte[] hash = this.hash(input, length);
+		for (int i = 0; i < DIGEST_LENGTH; i++)
+			if (hash[i] != target[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Encodes the characters of a password alphabet into single bytes. The cracking
+	 * kernels permute and enumerate these bytes in place, which is only equivalent to
+	 * hashing the UTF-8 string if every character is encoded in a single byte.
+	 * @param chars the characters to encode
+	 * @return one byte per character
+	 */
+	public static byte[] toBytes(String chars) {
+		byte[] bytes = new byte[chars.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char c = chars.charAt(i);
+			if (c > 0x7f)
+				throw new IllegalArgumentException("Only ASCII characters are supported, but found '" + c + "' in " + chars);
+			bytes[i] = (byte) c;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Parses a 64 character hex string into its 32 byte digest.
+	 * @param hex the hex encoded digest
+	 * @return the raw digest
+	 */
+	public static byte[] fromHex(String hex) {
+		if (hex.length() != 2 * DIGEST_LENGTH)
+			throw new IllegalArgumentException("Not a SHA-256 hex digest: " + hex);
+
+		byte[] bytes = new byte[DIGEST_LENGTH];
+		for (int i = 0; i < DIGEST_LENGTH; i++)
+			bytes[i] = (byte) ((Character.digit(hex.charAt(2 * i), 16) << 4) | Character.digit(hex.charAt(2 * i + 1), 16));
+		return bytes;
+	}
+
+	/**
+	 * Formats a raw digest as a lower case hex string.
+	 * @param digest the raw digest
+	 * @return the hex encoded digest
+	 */
+	public static String toHex(byte[] digest) {
+		char[] chars = new char[2 * digest.length];
+		for (int i = 0; i < digest.length; i++) {
+			chars[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+			chars[2 * i + 1] = HEX[digest[i] & 0xf];
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,124 @@
+package de.hpi.ddm.structures;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent cache of SHA-256 digests and the plaintexts that produce them, so that hints
+ * and passwords that were cracked in a previous run need not be searched again. The cache
+ * is an append-only log of records (32 digest bytes, one length byte, the plaintext's
+ * UTF-8 bytes). Opening the cache memory-maps the log and indexes its digests by their
+ * record offsets; plaintexts are decoded from the mapping only on a hit. Solutions that are
+ * added during the run are appended to the log, flushed record by record, and kept in memory.
+ * A record that was cut off by a crash is dropped when the cache is opened. The log is mapped
+ * as a single buffer, so caches of more than 2 GB are refused.
+ */
+public class SolutionCache implements Closeable {
+
+	private static final int MAX_PLAINTEXT_BYTES = 255;
+
+	private final MappedByteBuffer log;
+	private final DigestIndex index;	// the IDs are the records' offsets in the log
+	private final Map<String, String> added = new HashMap<>();
+	private final OutputStream output;
+
+	private SolutionCache(FileChannel channel) throws IOException {
+		if (channel.size() > Integer.MAX_VALUE) {
+			channel.close();
+			throw new IOException("Solution caches of more than " + Integer.MAX_VALUE + " bytes cannot be mapped");
+		}
+		this.log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+		DigestIndex.Builder builder = DigestIndex.builder();
+		byte[] digest = new byte[Sha256Engine.DIGEST_LENGTH];
+		int offset = 0;
+		while (offset + Sha256Engine.DIGEST_LENGTH + 1 <= this.log.limit()) {
+			int length = this.log.get(offset + Sha256Engine.DIGEST_LENGTH) & 0xff;
+			if (offset + Sha256Engine.DIGEST_LENGTH + 1 + length > this.log.limit())
+				break;
+
+			for (int i = 0; i < Sha256Engine.DIGEST_LENGTH; i++)
+				digest[i] = this.log.get(offset + i);
+			builder.add(digest, offset);
+			offset += Sha256Engine.DIGEST_LENGTH + 1 + length;
+		}
+		this.index = builder.build();
+
+		// new records continue behind the last complete one
+		if (offset < channel.size())
+			channel.truncate(offset);
+		channel.position(offset);
+		this.output = new BufferedOutputStream(Channels.newOutputStream(channel));
+	}
+
+	/**
+	 * Opens a cache; the file is created if it does not exist.
+	 * @param path the cache's log file
+	 * @return the opened cache
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static SolutionCache open(Path path) throws IOException {
+		return new SolutionCache(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * Looks up the plaintext of a digest.
+	 * @param digest the raw digest
+	 * @return the plaintext or null if the digest is not cached
+	 */
+	public String get(byte[] digest) {
+		int slot = this.index.find(digest);
+		if (slot < 0)
+			return this.added.get(Sha256Engine.toHex(digest));
+
+		int offset = this.index.id(this.index.start(slot));
+		byte[] plaintext = new byte[this.log.get(offset + Sha256Engine.DIGEST_LENGTH) & 0xff];
+		for (int i = 0; i < plaintext.length; i++)
+			plaintext[i] = this.log.get(offset + Sha256Engine.DIGEST_LENGTH + 1 + i);
+		return new String(plaintext, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Adds a solution unless its digest is cached already.
+	 * @param digest the raw digest
+	 * @param plaintext the plaintext that produces the digest; at most 255 bytes
+	 * @throws IOException if the solution cannot be appended to the log
+	 */
+	public void put(byte[] digest, String plaintext) throws IOException {
+		if (this.get(digest) != null)
+			return;
+
+		byte[] bytes = plaintext.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_PLAINTEXT_BYTES)
+			throw new IllegalArgumentException("Plaintexts of more than " + MAX_PLAINTEXT_BYTES + " bytes cannot be cached");
+
+		this.output.write(digest, 0, Sha256Engine.DIGEST_LENGTH);
+		this.output.write(bytes.length);
+		this.output.write(bytes);
+		// a crash must not lose the solutions that the buffer still holds
+		this.output.flush();
+		this.added.put(Sha256Engine.toHex(digest), plaintext);
+	}
+
+	/**
+	 * @return the number of cached solutions
+	 */
+	public int size() {
+		return this.index.numIds() + this.added.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.output.close();
+	}
+}
@@ -0,0 +1,336 @@
+package de.hpi.ddm.structures;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Schedules prioritized tasks onto workers that each accept a window of outstanding tasks.
+ * Workers pull work by completing tasks: every completion frees a slot of the worker's
+ * window that the next {@link #dispatch(BiConsumer)} refills, so a worker always has its
+ * next tasks at hand and never waits for a round trip to the scheduler. Tasks of a lower
+ * priority value are dispatched first. Once all queues are drained, free slots are used to
+ * speculatively re-execute stragglers, i.e., tasks that are outstanding for much longer
+ * than their priority's average; the first completion of a task wins, later ones are ignored.
+ * @param <W> the type of the workers
+ * @param <T> the type of the tasks' work
+ */
+public class WorkScheduler<W, T> {
+
+	private static final double DURATION_WEIGHT = 0.2;	// the weight of a new duration in the moving average of its priority
+
+	private class Task {
+		private final long id;
+		private final T work;
+		private final int priority;
+		private long dispatchTime;
+		private final Set<W> workers = new HashSet<>(2);	// the workers that currently execute the task
+
+		private Task(long id, T work, int priority) {
+			this.id = id;
+			this.work = work;
+			this.priority = priority;
+		}
+	}
+
+	private final List<Deque<Task>> queues;
+	private final Map<Long, Task> running = new HashMap<>();
+	private final Map<W, Integer> windows = new LinkedHashMap<>();
+	private final Map<W, Set<Long>> outstanding = new HashMap<>();	// also holds copies whose task was completed elsewhere
+	private final double[] averageDurations;
+	private final double speculationFactor;
+	private final LongSupplier clock;
+
+	private long nextTaskId = 0;
+
+	/**
+	 * Creates a scheduler.
+	 * @param priorities the number of priorities; tasks of priority 0 are dispatched first
+	 * @param speculationFactor a task becomes a straggler once it is outstanding for this many times its priority's
+	 * average duration; values of at most 0 disable speculative re-execution
+	 */
+	public WorkScheduler(int priorities, double speculationFactor) {
+		this(priorities, speculationFactor, System::nanoTime);
+	}
+
+	/**
+	 * Creates a scheduler with a custom clock.
+	 * @param priorities the number of priorities; tasks of priority 0 are dispatched first
+	 * @param speculationFactor see {@link #WorkScheduler(int, double)}
+	 * @param clock a monotonic clock in nanoseconds
+	 */
+	public WorkScheduler(int priorities, double speculationFactor, LongSupplier clock) {
+		this.queues = new ArrayList<>(priorities);
+		for (int i = 0; i < priorities; i++)
+			this.queues.add(new ArrayDeque<>());
+		this.averageDurations = new double[priorities];
+		this.speculationFactor = speculationFactor;
+		this.clock = clock;
+	}
+
+	/**
+	 * Queues a task.
+	 * @param work the task's work
+	 * @param priority the task's priority
+	 * @return the ID of the task that its completion must report
+	 */
+	public long submit(T work, int priority) {
+		Task task = new Task(this.nextTaskId++, work, priority);
+		this.queues.get(priority).add(task);
+		return task.id;
+	}
+
+	/**
+	 * Adds a worker.
+	 * @param worker the worker
+	 * @param window the number of tasks that the worker accepts at once
+	 */
+	public void register(W worker, int window) {
+		this.windows.put(worker, Math.max(1, window));
+		this.outstanding.putIfAbsent(worker, new HashSet<>());
+	}
+
+	/**
+	 * Removes a worker; its outstanding tasks are queued again unless another worker still executes them.
+	 * @param worker the worker
+	 */
+	public void unregister(W worker) {
+		this.windows.remove(worker);
+		Set<Long> taskIds = this.outstanding.remove(worker);
+		if (taskIds == null)
+			return;
+
+		for (long taskId : taskIds) {
+			Task task = this.running.get(taskId);
+			if (task == null)
+				continue;
+
+			task.workers.remove(worker);
+			if (task.workers.isEmpty()) {
+				this.running.remove(taskId);
+				this.queues.get(task.priority).addFirst(task);
+			}
+		}
+	}
+
+	/**
+	 * Records the completion of a task by a worker and frees the worker's slot.
+	 * @param worker the worker
+	 * @param taskId the ID of the task
+	 * @return true if this is the task's first completion, false if the task was already completed or cancelled
+	 */
+	public boolean complete(W worker, long taskId) {
+		Set<Long> taskIds = this.outstanding.get(worker);
+		if (taskIds != null)
+			taskIds.remove(taskId);
+
+		Task task = this.running.remove(taskId);
+		if (task == null)
+			return false;
+
+		// further copies of the task keep their workers' slots until they report back
+		double duration = this.clock.getAsLong() - task.dispatchTime;
+		double average = this.averageDurations[task.priority];
+		this.averageDurations[task.priority] = (average == 0) ? duration : (1 - DURATION_WEIGHT) * average + DURATION_WEIGHT * duration;
+		return true;
+	}
+
+	/**
+	 * Records the failure of a task on a worker and frees the worker's slot; the task is queued
+	 * again unless another worker still executes it.
+	 * @param worker the worker
+	 * @param taskId the ID of the task
+	 * @return true if the task was queued again, false if it was completed, cancelled or is still running elsewhere
+	 */
+	public boolean fail(W worker, long taskId) {
+		Set<Long> taskIds = this.outstanding.get(worker);
+		if (taskIds != null)
+			taskIds.remove(taskId);
+
+		Task task = this.running.get(taskId);
+		if (task == null)
+			return false;
+
+		task.workers.remove(worker);
+		if (!task.workers.isEmpty())
+			return false;
+
+		this.running.remove(taskId);
+		this.queues.get(task.priority).addFirst(task);
+		return true;
+	}
+
+	/**
+	 * Removes queued tasks; running tasks are not affected.
+	 * @param filter selects the work of the tasks to remove
+	 * @return the work of the removed tasks
+	 */
+	public List<T> cancel(Predicate<T> filter) {
+		List<T> cancelled = new ArrayList<>();
+		for (Deque<Task> queue : this.queues) {
+			Iterator<Task> tasks = queue.iterator();
+			while (tasks.hasNext()) {
+				Task task = tasks.next();
+				if (filter.test(task.work)) {
+					tasks.remove();
+					cancelled.add(task.work);
+				}
+			}
+		}
+		return cancelled;
+	}
+
+	/**
+	 * Fills the free slots of all workers, one slot per worker and round so that the work
+	 * spreads evenly, and re-executes stragglers once no queued task is left.
+	 * @param send sends a task's work to a worker
+	 */
+	public void dispatch(BiConsumer<W, T> send) {
+		boolean assigned = true;
+		while (assigned) {
+			assigned = false;
+			for (W worker : this.windows.keySet()) {
+				if (!this.hasFreeSlot(worker))
+					continue;
+
+				Task task = this.poll();
+				if (task == null)
+					break;
+
+				task.dispatchTime = this.clock.getAsLong();
+				this.running.put(task.id, task);
+				this.start(worker, task, send);
+				assigned = true;
+			}
+		}
+
+		if (this.speculationFactor <= 0)
+			return;
+
+		for (W worker : this.windows.keySet()) {
+			while (this.hasFreeSlot(worker)) {
+				Task straggler = this.findStraggler(worker);
+				if (straggler == null)
+					break;
+				this.start(worker, straggler, send);
+			}
+		}
+	}
+
+	private boolean hasFreeSlot(W worker) {
+		return this.outstanding.get(worker).size() < this.windows.get(worker);
+	}
+
+	private Task poll() {
+		for (Deque<Task> queue : this.queues)
+			if (!queue.isEmpty())
+				return queue.poll();
+		return null;
+	}
+
+	private void start(W worker, Task task, BiConsumer<W, T> send) {
+		task.workers.add(worker);
+		this.outstanding.get(worker).add(task.id);
+		send.accept(worker, task.work);
+	}
+
+	// Finds the task that exceeds its priority's average duration the most among the tasks that run only once and not on the worker
+	private Task findStraggler(W worker) {
+		long now = this.clock.getAsLong();
+		Task straggler = null;
+		double maxDelay = this.speculationFactor;
+		for (Task task : this.running.values()) {
+			double average = this.averageDurations[task.priority];
+			if ((task.workers.size() != 1) || task.workers.contains(worker) || (average == 0))
+				continue;
+
+			double delay = (now - task.dispatchTime) / average;
+			if (delay > maxDelay) {
+				straggler = task;
+				maxDelay = delay;
+			}
+		}
+		return straggler;
+	}
+
+	/**
+	 * Counts the tasks of a priority that are not completed yet.
+	 * @param priority the priority
+	 * @return the number of queued and running tasks of the priority
+	 */
+	public int pending(int priority) {
+		int pending = this.queues.get(priority).size();
+		for (Task task : this.running.values())
+			if (task.priority == priority)
+				pending++;
+		return pending;
+	}
+
+	/**
+	 * @return the number of tasks that wait for a free slot
+	 */
+	public int queued() {
+		int queued = 0;
+		for (Deque<Task> queue : this.queues)
+			queued += queue.size();
+		return queued;
+	}
+
+	/**
+	 * @param priority the priority
+	 * @return the number of tasks of the priority that wait for a free slot
+	 */
+	public int queued(int priority) {
+		return this.queues.get(priority).size();
+	}
+
+	/**
+	 * @return the number of workers with outstanding tasks
+	 */
+	public int busyWorkers() {
+		int busy = 0;
+		for (W worker : this.windows.keySet())
+			if (!this.outstanding.get(worker).isEmpty())
+				busy++;
+		return busy;
+	}
+
+	/**
+	 * @return the number of workers without outstanding tasks
+	 */
+	public int idleWorkers() {
+		return this.windows.size() - this.busyWorkers();
+	}
+
+	/**
+	 * @return the number of tasks that the workers' windows can take in addition to their outstanding tasks
+	 */
+	public int freeSlots() {
+		int free = 0;
+		for (Map.Entry<W, Integer> window : this.windows.entrySet())
+			free += Math.max(0, window.getValue() - this.outstanding.get(window.getKey()).size());
+		return free;
+	}
+
+	/**
+	 * @return true if all submitted tasks are completed or cancelled
+	 */
+	public boolean isIdle() {
+		if (!this.running.isEmpty())
+			return false;
+		for (Deque<Task> queue : this.queues)
+			if (!queue.isEmpty())
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,31 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class BatchSizeControllerTest {
+
+	@Test
+	public void testAdaptationStaysWithinBounds() {
+		BatchSizeController controller = new BatchSizeController(50, 10, 150, 100);
+		assertEquals(50, controller.size());
+
+		// idle workers grow the batches up to the maximum
+		assertEquals(100, controller.update(10, 2));
+		assertEquals(150, controller.update(10, 1));
+		assertEquals(150, controller.update(10, 1));
+
+		// without idle workers, a fast master keeps the size
+		assertEquals(150, controller.update(10, 0));
+
+		// a slow master shrinks the batches down to the minimum, even if workers idle
+		assertEquals(75, controller.update(200, 3));
+		assertEquals(37, controller.update(200, 0));
+		assertEquals(18, controller.update(200, 0));
+		assertEquals(10, controller.update(200, 0));
+		assertEquals(10, controller.update(200, 0));
+
+		assertEquals(10, new BatchSizeController(1, 10, 150, 100).size());
+	}
+}
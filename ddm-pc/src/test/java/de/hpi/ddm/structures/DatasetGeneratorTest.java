@@ -0,0 +1,69 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class DatasetGeneratorTest {
+
+	private static final String ALPHABET = "ABCDEF";
+
+	private static String hash(String plaintext) {
+		byte[] bytes = Sha256Engine.toBytes(plaintext);
+		return Sha256Engine.toHex(new Sha256Engine().hash(bytes, bytes.length));
+	}
+
+	@Test
+	public void testRowsMatchTheirPlaintexts() throws Exception {
+		// the digests of all hints over the alphabet and the chars that they miss
+		Map<String, Character> hints = new HashMap<>();
+		for (char missing : ALPHABET.toCharArray()) {
+			byte[] permutation = Sha256Engine.toBytes(ALPHABET.replace(String.valueOf(missing), ""));
+			do {
+				hints.put(hash(new String(permutation, StandardCharsets.US_ASCII)), missing);
+			} while (Permutations.next(permutation));
+		}
+
+		StringWriter dataset = new StringWriter();
+		StringWriter solutions = new StringWriter();
+		new DatasetGenerator(ALPHABET, 4, 2, 1).write(dataset, solutions, 20);
+
+		String[] rows = dataset.toString().split("\n");
+		String[] plaintexts = solutions.toString().split("\n");
+		assertEquals("ID;Name;PasswordChars;PasswordLength;Password;Hint1;Hint2", rows[0]);
+		assertEquals(21, rows.length);
+		assertEquals(20, plaintexts.length);
+
+		for (int i = 1; i < rows.length; i++) {
+			String[] row = rows[i].split(";");
+			String password = plaintexts[i - 1].split(";")[1];
+			assertEquals(String.valueOf(i), row[0]);
+			assertEquals(ALPHABET, row[2]);
+			assertEquals("4", row[3]);
+			assertEquals(hash(password), row[4]);
+
+			Set<Character> missing = new HashSet<>();
+			for (int h = 5; h < row.length; h++) {
+				Character m = hints.get(row[h]);
+				assertNotNull(m);
+				assertFalse(password.indexOf(m) >= 0);
+				assertTrue(missing.add(m));
+			}
+		}
+
+		// the same seed generates the same dataset
+		StringWriter again = new StringWriter();
+		new DatasetGenerator(ALPHABET, 4, 2, 1).write(again, null, 20);
+		assertEquals(dataset.toString(), again.toString());
+	}
+}
@@ -0,0 +1,62 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class DigestIndexTest {
+
+	private static byte[] digest(String plaintext) {
+		byte[] bytes = plaintext.getBytes(StandardCharsets.UTF_8);
+		return new Sha256Engine().hash(bytes, bytes.length).clone();
+	}
+
+	@Test
+	public void testLookup() {
+		DigestIndex index = DigestIndex.builder()
+				.add(digest("ABC"), 3)
+				.add(digest("CBA"), 1)
+				.add(digest("ABC"), 2)
+				.add(Sha256Engine.toHex(digest("BCA")), 7)
+				.build();
+
+		assertEquals(3, index.size());
+		assertEquals(4, index.numIds());
+		assertFalse(index.contains(digest("ACB")));
+
+		int slot = index.find(digest("ABC"));
+		assertTrue(slot >= 0);
+		assertEquals(2, index.end(slot) - index.start(slot));
+		assertEquals(2, index.id(index.start(slot)));
+		assertEquals(3, index.id(index.start(slot) + 1));
+
+		slot = index.find(digest("BCA"));
+		assertEquals(7, index.id(index.start(slot)));
+
+		byte[] output = new byte[Sha256Engine.DIGEST_LENGTH];
+		index.digest(slot, output);
+		assertArrayEquals(digest("BCA"), output);
+	}
+
+	@Test
+	public void testDigestsSharingAPrefix() {
+		byte[] first = new byte[Sha256Engine.DIGEST_LENGTH];
+		byte[] second = new byte[Sha256Engine.DIGEST_LENGTH];
+		byte[] third = new byte[Sha256Engine.DIGEST_LENGTH];
+		first[31] = 1;
+		second[31] = 2;
+		third[0] = (byte) 0xff;
+
+		DigestIndex index = DigestIndex.builder().add(third, 3).add(second, 2).add(first, 1).build();
+
+		assertEquals(1, index.id(index.start(index.find(first))));
+		assertEquals(2, index.id(index.start(index.find(second))));
+		assertEquals(3, index.id(index.start(index.find(third))));
+		assertFalse(index.contains(new byte[Sha256Engine.DIGEST_LENGTH]));
+	}
+}
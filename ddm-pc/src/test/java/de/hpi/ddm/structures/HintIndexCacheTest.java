@@ -0,0 +1,35 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class HintIndexCacheTest {
+
+	@Test
+	public void testForeignDoneBatchesKeepCachedIndexes() {
+		HintIndexCache cache = new HintIndexCache();
+		DigestIndex index = DigestIndex.builder().build();
+		cache.put(0, index);
+		AtomicBoolean done = cache.doneFlag(0);
+
+		// the master announces far more finished batches than the cache holds indexes
+		for (int batchId = 1; batchId <= 100; batchId++)
+			cache.markDone(batchId);
+
+		assertNotNull(cache.get(0));
+		assertFalse(done.get());
+		assertTrue(cache.isDone(100));
+
+		cache.markDone(0);
+		assertTrue(done.get());
+
+		// a batch that was announced before its index arrived is done right away
+		cache.put(100, index);
+		assertTrue(cache.doneFlag(100).get());
+	}
+}
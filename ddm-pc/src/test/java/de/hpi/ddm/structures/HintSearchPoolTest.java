@@ -0,0 +1,59 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.typesafe.config.ConfigFactory;
+
+public class HintSearchPoolTest {
+
+	private static HintSearchPool pool(double factor, int min, int max) {
+		return new HintSearchPool(ConfigFactory.parseString(
+				"parallelism-factor = " + factor + "\n" +
+				"parallelism-min = " + min + "\n" +
+				"parallelism-max = " + max));
+	}
+
+	@Test
+	public void testParallelismIsClamped() {
+		HintSearchPool pool = pool(1000.0, 1, 3);
+		assertEquals(3, pool.parallelism());
+		pool.shutdown();
+
+		pool = pool(0.0, 2, 64);
+		assertEquals(2, pool.parallelism());
+		pool.shutdown();
+	}
+
+	@Test
+	public void testSubtasksRunInThePool() throws Exception {
+		// every permutation is a hint, so that every leaf task reports the thread it runs on
+		byte[] sequence = Sha256Engine.toBytes("ABCDE");
+		DigestIndex.Builder builder = DigestIndex.builder();
+		byte[] permutation = sequence.clone();
+		int id = 0;
+		do {
+			builder.add(new Sha256Engine().hash(permutation, permutation.length).clone(), id++);
+		} while (Permutations.next(permutation));
+
+		ConcurrentLinkedQueue<String> threads = new ConcurrentLinkedQueue<>();
+		HintSearchPool pool = pool(1.0, 4, 4);
+		try {
+			long hashes = pool.search(new PermutationSearch(sequence, 0, 120, 7, builder.build(), new AtomicBoolean(false),
+					(hint, match) -> threads.add(Thread.currentThread().getName()))).get();
+
+			assertEquals(120, hashes);
+			assertEquals(120, threads.size());
+			for (String thread : threads)
+				assertTrue(thread, thread.startsWith(HintSearchPool.CONFIG_PATH + "-"));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.hpi.ddm.configuration.DatasetDescriptor;
+import de.hpi.ddm.configuration.RecordReader;
+
+public class MappedDatasetTest {
+
+	private static final String DIGEST = "1582824a01c4b842e207a51e3cfc47212885e58eb147e33ea29ba212e611904d";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createDataset(int records) throws Exception {
+		StringBuilder content = new StringBuilder("ID;Name;Password\r\n");
+		for (int i = 1; i <= records; i++)
+			content.append(i).append(";Name").append(i).append("; ").append(DIGEST).append((i % 3 == 0) ? "\r\n" : "\n");
+
+		File file = this.folder.newFile("dataset.csv");
+		Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testAllRecordsAreRead() throws Exception {
+		File file = this.createDataset(100);
+		try (MappedDataset dataset = MappedDataset.open(file.toPath(), StandardCharsets.UTF_8, ';', true, true)) {
+			String[] record;
+			int expectedId = 1;
+			while ((record = dataset.readNext()) != null) {
+				assertArrayEquals(new String[] { String.valueOf(expectedId), "Name" + expectedId, DIGEST }, record);
+				expectedId++;
+			}
+			assertEquals(101, expectedId);
+		}
+	}
+
+	@Test
+	public void testReadNext() throws Exception {
+		File file = this.createDataset(3);
+		try (MappedDataset dataset = MappedDataset.open(file.toPath(), StandardCharsets.UTF_8, ';', true, true)) {
+			assertArrayEquals(new String[] { "1", "Name1", DIGEST }, dataset.readNext());
+			assertArrayEquals(new String[] { "2", "Name2", DIGEST }, dataset.readNext());
+			assertArrayEquals(new String[] { "3", "Name3", DIGEST }, dataset.readNext());
+			assertNull(dataset.readNext());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiByteCharsetsAreRejected() throws Exception {
+		File file = this.createDataset(3);
+		MappedDataset.open(file.toPath(), StandardCharsets.UTF_16, ';', true, true);
+	}
+
+	@Test
+	public void testDifferingLinesAreSkipped() throws Exception {
+		File file = this.folder.newFile("differing.csv");
+		Files.write(file.toPath(), "ID;Name\n1;A\n2;B;C\n3;C\n".getBytes(StandardCharsets.UTF_8));
+
+		DatasetDescriptor descriptor = new DatasetDescriptor();
+		descriptor.setDatasetPath(file.getParent() + File.separator);
+		descriptor.setDatasetName("differing");
+		descriptor.setMemoryMapped(true);
+
+		try (RecordReader reader = descriptor.createRecordReader()) {
+			assertArrayEquals(new String[] { "1", "A" }, reader.readNext());
+			assertArrayEquals(new String[] { "3", "C" }, reader.readNext());
+			assertNull(reader.readNext());
+		}
+
+		// opencsv reads all lines as they are
+		descriptor.setMemoryMapped(false);
+		try (RecordReader reader = descriptor.createRecordReader()) {
+			assertArrayEquals(new String[] { "1", "A" }, reader.readNext());
+			assertArrayEquals(new String[] { "2", "B", "C" }, reader.readNext());
+			assertArrayEquals(new String[] { "3", "C" }, reader.readNext());
+			assertNull(reader.readNext());
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class PermutationSearchTest {
+
+	private static final String[] HINTS = { "DCBAE", "EDCBA", "ABCDE", "BADCE" };
+
+	private static DigestIndex hints() {
+		DigestIndex.Builder builder = DigestIndex.builder();
+		for (int i = 0; i < HINTS.length; i++) {
+			byte[] bytes = HINTS[i].getBytes(StandardCharsets.UTF_8);
+			builder.add(new Sha256Engine().hash(bytes, bytes.length).clone(), i);
+		}
+		builder.add(Sha256Engine.toHex(new byte[Sha256Engine.DIGEST_LENGTH]), 42);
+		return builder.build();
+	}
+
+	@Test
+	public void testSequentialSearch() {
+		ConcurrentLinkedQueue<Integer> found = new ConcurrentLinkedQueue<>();
+		new PermutationSearch(Sha256Engine.toBytes("ABCDE"), 0, 120, Long.MAX_VALUE, hints(), new AtomicBoolean(false), (id, permutation) -> found.add(id)).invoke();
+
+		assertEquals(HINTS.length, found.size());
+		for (int i = 0; i < HINTS.length; i++)
+			assertTrue(found.contains(i));
+	}
+
+	@Test
+	public void testRankRanges() {
+		ConcurrentLinkedQueue<Integer> found = new ConcurrentLinkedQueue<>();
+		for (long from = 0; from < 120; from += 25)
+			new PermutationSearch(Sha256Engine.toBytes("EDCBA"), from, Math.min(from + 25, 120), Long.MAX_VALUE, hints(), new AtomicBoolean(false), (id, permutation) -> found.add(id)).invoke();
+
+		assertEquals(HINTS.length, found.size());
+	}
+
+	@Test
+	public void testDoneSearch() {
+		ConcurrentLinkedQueue<Integer> found = new ConcurrentLinkedQueue<>();
+		new PermutationSearch(Sha256Engine.toBytes("ABCDE"), 0, 120, 7, hints(), new AtomicBoolean(true), (id, permutation) -> found.add(id)).invoke();
+
+		assertTrue(found.isEmpty());
+	}
+
+	@Test
+	public void testUnrank() {
+		byte[] elements = Sha256Engine.toBytes("CAB");
+		byte[] permutation = new byte[elements.length];
+		String[] expected = { "ABC", "ACB", "BAC", "BCA", "CAB", "CBA" };
+
+		assertEquals(expected.length, Permutations.factorial(elements.length));
+		for (int rank = 0; rank < expected.length; rank++) {
+			Permutations.unrank(elements, rank, permutation);
+			assertEquals(expected[rank], new String(permutation, StandardCharsets.US_ASCII));
+		}
+
+		Permutations.unrank(elements, 2, permutation);
+		assertTrue(Permutations.next(permutation));
+		assertEquals("BCA", new String(permutation, StandardCharsets.US_ASCII));
+		Permutations.unrank(elements, 5, permutation);
+		assertFalse(Permutations.next(permutation));
+	}
+
+	@Test
+	public void testParallelSearch() {
+		ConcurrentLinkedQueue<Integer> found = new ConcurrentLinkedQueue<>();
+		new ForkJoinPool(4).invoke(new PermutationSearch(Sha256Engine.toBytes("ABCDE"), 0, 120, 7, hints(), new AtomicBoolean(false), (id, permutation) -> found.add(id)));
+
+		assertEquals(HINTS.length, found.size());
+		for (int i = 0; i < HINTS.length; i++)
+			assertTrue(found.contains(i));
+	}
+}
@@ -0,0 +1,40 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PermutationTableTest {
+
+	private static final String[] HINTS = { "DCBA", "EDCB", "ACDE", "BADE", "EABC" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testJoin() throws Exception {
+		assertNull(PermutationTable.open(this.folder.getRoot().toPath(), "ABCDE"));
+		assertEquals(120, PermutationTable.build(this.folder.getRoot().toPath(), "EDCBA"));
+
+		DigestIndex.Builder builder = DigestIndex.builder();
+		for (int i = 0; i < HINTS.length; i++) {
+			byte[] bytes = HINTS[i].getBytes(StandardCharsets.UTF_8);
+			builder.add(new Sha256Engine().hash(bytes, bytes.length).clone(), i);
+		}
+		builder.add(Sha256Engine.toHex(new byte[Sha256Engine.DIGEST_LENGTH]), 42);
+
+		Map<Integer, String> found = new HashMap<>();
+		PermutationTable.open(this.folder.getRoot().toPath(), "ABCDE").join(builder.build(), (id, permutation) -> found.put(id, new String(permutation, StandardCharsets.US_ASCII)));
+
+		assertEquals(HINTS.length, found.size());
+		for (int i = 0; i < HINTS.length; i++)
+			assertEquals(HINTS[i], found.get(i));
+	}
+}
@@ -0,0 +1,53 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SolutionCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] digest(String plaintext) {
+		byte[] bytes = Sha256Engine.toBytes(plaintext);
+		return new Sha256Engine().hash(bytes, bytes.length).clone();
+	}
+
+	@Test
+	public void testSolutionsSurviveReopening() throws Exception {
+		File file = new File(this.folder.getRoot(), "solutions.log");
+
+		try (SolutionCache cache = SolutionCache.open(file.toPath())) {
+			cache.put(digest("ABCD"), "ABCD");
+			cache.put(digest("HGFEDCBA"), "HGFEDCBA");
+			cache.put(digest("ABCD"), "ABCD");
+			assertEquals("ABCD", cache.get(digest("ABCD")));
+			assertEquals(2, cache.size());
+		}
+
+		// a record that was cut off is dropped
+		Files.write(file.toPath(), new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+
+		try (SolutionCache cache = SolutionCache.open(file.toPath())) {
+			assertEquals(2, cache.size());
+			assertEquals("ABCD", cache.get(digest("ABCD")));
+			assertEquals("HGFEDCBA", cache.get(digest("HGFEDCBA")));
+			assertNull(cache.get(digest("DCBA")));
+
+			cache.put(digest("DCBA"), "DCBA");
+		}
+
+		try (SolutionCache cache = SolutionCache.open(file.toPath())) {
+			assertEquals(3, cache.size());
+			assertEquals("DCBA", cache.get(digest("DCBA")));
+		}
+	}
+}
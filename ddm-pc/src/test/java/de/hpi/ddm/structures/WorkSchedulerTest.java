@@ -0,0 +1,124 @@
+package de.hpi.ddm.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class WorkSchedulerTest {
+
+	private static class Assignment {
+		private final String worker;
+		private final String work;
+
+		private Assignment(String worker, String work) {
+			this.worker = worker;
+			this.work = work;
+		}
+	}
+
+	@Test
+	public void testWindowsAndPriorities() {
+		WorkScheduler<String, String> scheduler = new WorkScheduler<>(2, 0);
+		long low = scheduler.submit("low", 1);
+		scheduler.submit("high1", 0);
+		scheduler.submit("high2", 0);
+		scheduler.register("a", 1);
+		scheduler.register("b", 1);
+
+		List<Assignment> assignments = new ArrayList<>();
+		scheduler.dispatch((worker, work) -> assignments.add(new Assignment(worker, work)));
+		assertEquals(2, assignments.size());
+		assertEquals(1, scheduler.queued(1));
+		assertEquals(2, scheduler.busyWorkers());
+		assertEquals("high1", assignments.get(0).work);
+		assertEquals("high2", assignments.get(1).work);
+
+		// the low priority task is dispatched only once a window has room again
+		scheduler.dispatch((worker, work) -> assignments.add(new Assignment(worker, work)));
+		assertEquals(2, assignments.size());
+
+		scheduler.register("c", 2);
+		scheduler.dispatch((worker, work) -> assignments.add(new Assignment(worker, work)));
+		assertEquals(3, assignments.size());
+		assertEquals("c", assignments.get(2).worker);
+		assertEquals("low", assignments.get(2).work);
+
+		assertTrue(scheduler.complete("c", low));
+		assertFalse(scheduler.complete("c", low));
+		assertEquals(1, scheduler.idleWorkers());
+		assertEquals(0, scheduler.pending(1));
+		assertEquals(2, scheduler.pending(0));
+	}
+
+	@Test
+	public void testSpeculativeReExecution() {
+		AtomicLong now = new AtomicLong(0);
+		WorkScheduler<String, String> scheduler = new WorkScheduler<>(1, 2.0, now::get);
+		long first = scheduler.submit("first", 0);
+		long straggler = scheduler.submit("straggler", 0);
+		scheduler.register("fast", 1);
+		scheduler.register("slow", 1);
+
+		List<String> dispatched = new ArrayList<>();
+		scheduler.dispatch((worker, work) -> dispatched.add(worker + ":" + work));
+		assertEquals(Arrays.asList("fast:first", "slow:straggler"), dispatched);
+
+		now.set(10);
+		assertTrue(scheduler.complete("fast", first));
+
+		// not yet twice the average duration
+		now.set(20);
+		scheduler.dispatch((worker, work) -> dispatched.add(worker + ":" + work));
+		assertEquals(2, dispatched.size());
+
+		now.set(21);
+		scheduler.dispatch((worker, work) -> dispatched.add(worker + ":" + work));
+		assertEquals("fast:straggler", dispatched.get(2));
+
+		// the copy wins; the original's late completion is ignored
+		assertTrue(scheduler.complete("fast", straggler));
+		assertFalse(scheduler.complete("slow", straggler));
+		assertTrue(scheduler.isIdle());
+	}
+
+	@Test
+	public void testUnregisterRequeuesOutstandingTasks() {
+		WorkScheduler<String, String> scheduler = new WorkScheduler<>(1, 0);
+		scheduler.submit("task", 0);
+		scheduler.register("a", 1);
+		scheduler.dispatch((worker, work) -> { });
+
+		scheduler.unregister("a");
+		scheduler.register("b", 1);
+
+		List<String> dispatched = new ArrayList<>();
+		scheduler.dispatch((worker, work) -> dispatched.add(worker + ":" + work));
+		assertEquals(Arrays.asList("b:task"), dispatched);
+	}
+
+	@Test
+	public void testFailedTasksAreQueuedAgain() {
+		WorkScheduler<String, String> scheduler = new WorkScheduler<>(1, 0);
+		long task = scheduler.submit("task", 0);
+		scheduler.register("a", 1);
+		scheduler.dispatch((worker, work) -> { });
+
+		assertTrue(scheduler.fail("a", task));
+		assertEquals(1, scheduler.queued());
+		assertEquals(1, scheduler.idleWorkers());
+
+		List<String> dispatched = new ArrayList<>();
+		scheduler.dispatch((worker, work) -> dispatched.add(worker + ":" + work));
+		assertEquals(Arrays.asList("a:task"), dispatched);
+
+		assertTrue(scheduler.complete("a", task));
+		assertFalse(scheduler.fail("a", task));
+	}
+}